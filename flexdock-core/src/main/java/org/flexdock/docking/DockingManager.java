@@ -25,7 +25,9 @@ import org.flexdock.docking.activation.ActiveDockableListener;
 import org.flexdock.docking.defaults.DefaultDockingStrategy;
 import org.flexdock.docking.defaults.DockableComponentWrapper;
 import org.flexdock.docking.drag.DragManager;
+import org.flexdock.docking.event.DockingEvent;
 import org.flexdock.docking.event.DockingEventHandler;
+import org.flexdock.docking.event.DockingListener;
 import org.flexdock.docking.event.hierarchy.DockingPortTracker;
 import org.flexdock.docking.event.hierarchy.RootDockingPortInfo;
 import org.flexdock.docking.floating.policy.FloatPolicyManager;
@@ -43,6 +45,8 @@ import java.awt.event.MouseListener;
 import java.awt.event.MouseMotionListener;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 import static org.flexdock.docking.DockingConstants.Region;
 
@@ -101,53 +105,190 @@ public class DockingManager {
 
 	private static final Object persistentIdLock = new Object();
 
+	private static final Object subsystemLock = new Object();
+
+	/**
+	 * The default number of milliseconds after the last layout change at
+	 * which the layout is automatically stored.
+	 *
+	 * @see #setAutoPersistDelay(int)
+	 */
+	public static final int DEFAULT_AUTO_PERSIST_DELAY = 2000;
+
 	private String defaultLayoutManagerClass;
 
 	private String defaultMinimizeManagerClass;
 
 	private DockingStrategy defaultDocker;
 
-	private LayoutManager layoutManager;
+	private volatile LayoutManager layoutManager;
 
-	private MinimizationManager minimizeManager;
+	private volatile MinimizationManager minimizeManager;
 
 	private DockableFactory dockableFactory;
 
 	private AutoPersist autoPersister;
 
+	private boolean autoPersistInstalled;
+
+	private volatile boolean dockingSubsystemsReady;
+
 	private float defaultSiblingSize;
 
 	static {
-		// call this method to preload any framework resources
-		// we might need later
-		init();
+		// only the inexpensive, always-needed setup happens here. drag effects,
+		// focus tracking, the layout and minimization managers, and
+		// auto-persistence are brought up on first use.
+		StartupTimings.time("core", DockingManager::init);
 	}
 
-	private static class AutoPersist extends Thread {
+	/**
+	 * Stores the layout a short delay after it last changed, and flushes
+	 * anything still unsaved when the JVM shuts down.
+	 */
+	private static class AutoPersist extends Thread implements DockingListener {
+		// the longest a steady stream of changes may postpone a save, in delays
+		private static final int MAX_POSTPONEMENT = 5;
+
 		private boolean enabled;
+		private int delay = DEFAULT_AUTO_PERSIST_DELAY;
+		private javax.swing.Timer timer;
+		private boolean dirty;
+		private long dirtySince;
+		private long lastSaved;
+		private CompletableFuture<Boolean> lastStore;
 
 		@Override
 		public void run() {
 			store();
 		}
 
-		private synchronized void store() {
+		private void store() {
+			CompletableFuture<Boolean> pending;
+			synchronized (this) {
+				if (timer != null) {
+					timer.stop();
+				}
+				if (!enabled) {
+					return;
+				}
+				pending = lastStore;
+				// without periodic saves, or before the first one, store everything
+				if (dirty || delay <= 0 || pending == null) {
+					pending = null;
+					dirty = false;
+				}
+			}
+
 			try {
-				if (enabled) {
+				if (pending != null) {
+					pending.join();
+				} else {
 					storeLayoutModel();
 				}
 			}
-			catch (IOException | PersistenceException e) {
+			catch (IOException | PersistenceException | CompletionException e) {
 				e.printStackTrace();
 			}
 		}
 
+		private synchronized void layoutChanged() {
+			if (!enabled || delay <= 0) {
+				return;
+			}
+
+			long now = System.currentTimeMillis();
+			if (!dirty) {
+				dirty = true;
+				dirtySince = now;
+			}
+			if (timer == null) {
+				timer = new javax.swing.Timer(delay, e -> save());
+				timer.setRepeats(false);
+			}
+			// restart the delay with each change, but save at most once per delay
+			// and no later than MAX_POSTPONEMENT delays after the first change
+			long wait = Math.min(delay, dirtySince + (long) MAX_POSTPONEMENT * delay - now);
+			wait = Math.max(wait, lastSaved + delay - now);
+			timer.setInitialDelay((int) Math.max(0, wait));
+			timer.restart();
+		}
+
+		private void save() {
+			synchronized (this) {
+				if (!enabled || !dirty) {
+					return;
+				}
+				dirty = false;
+				lastSaved = System.currentTimeMillis();
+			}
+
+			LayoutManager mgr = getLayoutManager();
+			if (mgr == null) {
+				return;
+			}
+			// the layout is captured here on the EDT and written in the background
+			CompletableFuture<Boolean> future = mgr.storeAsync(null);
+			future.whenComplete((stored, ex) -> {
+				if (ex != null) {
+					ex.printStackTrace();
+				}
+			});
+			synchronized (this) {
+				lastStore = future;
+			}
+		}
+
+		private synchronized void setDelay(int delay) {
+			this.delay = delay;
+			if (timer != null) {
+				if (delay <= 0) {
+					timer.stop();
+				} else {
+					timer.setDelay(delay);
+				}
+			}
+		}
+
+		private synchronized int getDelay() {
+			return delay;
+		}
+
+		@Override
+		public void dockingComplete(DockingEvent evt) {
+			layoutChanged();
+		}
+
+		@Override
+		public void undockingComplete(DockingEvent evt) {
+			layoutChanged();
+		}
+
+		@Override
+		public void dockingCanceled(DockingEvent evt) {
+		}
+
+		@Override
+		public void dragStarted(DockingEvent evt) {
+		}
+
+		@Override
+		public void dropStarted(DockingEvent evt) {
+		}
+
+		@Override
+		public void undockingStarted(DockingEvent evt) {
+		}
+
 		public synchronized boolean isEnabled() {
 			return enabled;
 		}
 
 		public synchronized void setEnabled(boolean enabled) {
 			this.enabled = enabled;
+			if (!enabled && timer != null) {
+				timer.stop();
+			}
 		}
 	}
 
@@ -177,33 +318,79 @@ public class DockingManager {
 			System.getProperties().putAll(p);
 		}
 
-		// prime the drag manager for use
-		DragManager.prime();
-
 		// make sure dockingEvents are properly intercepted
 		EventManager.addHandler(new DockingEventHandler());
 		EventManager.addListener(FloatPolicyManager.getInstance());
 
+		// remember the configured managers. they are instantiated on demand.
 		Properties config = ResourceManager.getProperties(CONFIG_PROPS, true);
 		DockingManager mgr = getDockingManager();
-		// set the minimization manager
 		mgr.defaultMinimizeManagerClass = config.getProperty(MINIMIZE_MANAGER);
-		setMinimizeManager(mgr.defaultMinimizeManagerClass);
-		// set the layout manager
 		mgr.defaultLayoutManagerClass = config.getProperty(LAYOUT_MANAGER);
-		setLayoutManager(mgr.defaultLayoutManagerClass);
-
-		// setup tracking for the currently active dockable
-		ActiveDockableListener.prime();
 
 		// setup the default sibling size
 		float siblingSize = Utilities.getFloat(System
 						.getProperty(RegionChecker.DEFAULT_SIBLING_SIZE_KEY),
 				RegionChecker.DEFAULT_SIBLING_SIZE);
 		setDefaultSiblingSize(siblingSize);
+	}
 
-		// setup auto-persistence
-		Runtime.getRuntime().addShutdownHook(getDockingManager().autoPersister);
+	/**
+	 * Brings up the subsystems every docking layout depends upon the first
+	 * time a {@code Dockable} is registered: the {@code LayoutManager}, which
+	 * must see every registration to track layout state, and focus tracking
+	 * for the active {@code Dockable}.
+	 */
+	private static void initDockingSubsystems() {
+		DockingManager mgr = getDockingManager();
+		if (mgr.dockingSubsystemsReady) {
+			return;
+		}
+		synchronized (subsystemLock) {
+			if (mgr.dockingSubsystemsReady) {
+				return;
+			}
+			getLayoutManager();
+			StartupTimings.time("focus tracking", ActiveDockableListener::prime);
+			mgr.dockingSubsystemsReady = true;
+		}
+	}
+
+	private static LayoutManager initLayoutManager() {
+		DockingManager mgr = getDockingManager();
+		synchronized (subsystemLock) {
+			if (mgr.layoutManager == null) {
+				StartupTimings.time("layout manager",
+						() -> setLayoutManager(mgr.defaultLayoutManagerClass));
+			}
+			return mgr.layoutManager;
+		}
+	}
+
+	private static MinimizationManager initMinimizeManager() {
+		DockingManager mgr = getDockingManager();
+		synchronized (subsystemLock) {
+			if (mgr.minimizeManager == null) {
+				StartupTimings.time("minimization manager",
+						() -> setMinimizeManager(mgr.defaultMinimizeManagerClass));
+			}
+			return mgr.minimizeManager;
+		}
+	}
+
+	/**
+	 * Returns a report of the time spent in each framework initialization
+	 * phase, in the order the phases completed. The core phase runs when the
+	 * {@code DockingManager} class loads; the layout manager and focus
+	 * tracking come up when the first {@code Dockable} is registered, while
+	 * drag effects, the minimization manager, and auto-persistence are only
+	 * initialized once they are first needed.
+	 *
+	 * @return the startup timing report
+	 * @see StartupTimings#getTimings()
+	 */
+	public static String getStartupReport() {
+		return StartupTimings.getReport();
 	}
 
 	private DockingManager() {
@@ -642,6 +829,8 @@ public class DockingManager {
 			throw new IllegalArgumentException("Dockable must have a non-null persistent ID.");
 		}
 
+		initDockingSubsystems();
+
 		DOCKABLES_BY_COMPONENT.put(dockable.getComponent(), dockable);
 
 		// flag the component as dockable, in case it doesn't
@@ -1490,7 +1679,8 @@ public class DockingManager {
 	 * @see #setLayoutManager(String)
 	 */
 	public static LayoutManager getLayoutManager() {
-		return getDockingManager().layoutManager;
+		LayoutManager mgr = getDockingManager().layoutManager;
+		return mgr == null ? initLayoutManager() : mgr;
 	}
 
 	/**
@@ -1525,6 +1715,9 @@ public class DockingManager {
 	 */
 	public static MinimizationManager getMinimizeManager() {
 		MinimizationManager mgr = getDockingManager().minimizeManager;
+		if (mgr == null) {
+			mgr = initMinimizeManager();
+		}
 		return mgr == null ? MinimizationManager.DEFAULT_STUB : mgr;
 	}
 
@@ -1688,11 +1881,13 @@ public class DockingManager {
 	 * when the application exits. Auto-persistence is disabled by default.
 	 * <p>
 	 * The {@code storeLayoutModel()} provides a means of manually sending the
-	 * docking layout model to some type of external storage. When the
-	 * {@code DockingManager} class loads, a shutdown hook is added to the
+	 * docking layout model to some type of external storage. The first time
+	 * auto-persistence is enabled, a shutdown hook is added to the
 	 * {@code Runtime}. If auto-persist is enabled when the JVM exits, the
 	 * shutdown hook automatically calls {@code storeLayoutModel()}, catching
-	 * and reporting any {@code IOExceptions} that may occur.
+	 * and reporting any {@code IOExceptions} that may occur. While enabled, the
+	 * layout is also stored shortly after it changes; see
+	 * {@link #setAutoPersistDelay(int)}.
 	 *
 	 * @param enabled {@code true} if automatic persistence is desired;
 	 *                {@code false} otherwise.
@@ -1700,7 +1895,63 @@ public class DockingManager {
 	 * @see Runtime#addShutdownHook(java.lang.Thread)
 	 */
 	public static void setAutoPersist(boolean enabled) {
-		getDockingManager().autoPersister.setEnabled(enabled);
+		DockingManager mgr = getDockingManager();
+		if (enabled) {
+			synchronized (subsystemLock) {
+				if (!mgr.autoPersistInstalled) {
+					StartupTimings.time("auto-persistence", () -> {
+						EventManager.addListener(mgr.autoPersister);
+						Runtime.getRuntime().addShutdownHook(mgr.autoPersister);
+					});
+					mgr.autoPersistInstalled = true;
+				}
+			}
+		}
+		mgr.autoPersister.setEnabled(enabled);
+	}
+
+	/**
+	 * Sets how long after the last change to the layout it is automatically
+	 * stored while auto-persistence is enabled. Docking and undocking
+	 * operations, divider moves and calls to {@code scheduleAutoPersist()}
+	 * restart the delay, but the layout is stored at most once per delay and
+	 * never postponed for more than a few delays by continuous changes. The
+	 * layout is captured on the event dispatch thread and written in the
+	 * background through {@link LayoutManager#storeAsync(String)}. When the
+	 * JVM exits, the shutdown hook then only stores the layout if it has
+	 * changed since.
+	 * <p>
+	 * A delay of zero or less disables periodic saving, leaving the layout to
+	 * be stored only at shutdown. The default is
+	 * {@link #DEFAULT_AUTO_PERSIST_DELAY}.
+	 *
+	 * @param millis the delay in milliseconds.
+	 * @see #setAutoPersist(boolean)
+	 */
+	public static void setAutoPersistDelay(int millis) {
+		getDockingManager().autoPersister.setDelay(millis);
+	}
+
+	/**
+	 * Returns the delay after the last layout change at which the layout is
+	 * automatically stored.
+	 *
+	 * @see #setAutoPersistDelay(int)
+	 */
+	public static int getAutoPersistDelay() {
+		return getDockingManager().autoPersister.getDelay();
+	}
+
+	/**
+	 * Notifies the auto-persistence mechanism that the layout has changed in a
+	 * way that does not involve a docking operation, so that it is stored once
+	 * the auto-persist delay has passed. Does nothing while auto-persistence is
+	 * disabled.
+	 *
+	 * @see #setAutoPersistDelay(int)
+	 */
+	public static void scheduleAutoPersist() {
+		getDockingManager().autoPersister.layoutChanged();
 	}
 
 	/**
@@ -44,17 +44,25 @@ public class ActiveDockableListener implements PropertyChangeListener, ChangeLis
 	private static final ActiveDockableListener SINGLETON = new ActiveDockableListener();
 	private static final HashSet<String> PROP_EVENTS = new HashSet<>();
 
+	private static boolean installed;
+
 	static {
-		primeImpl();
+		PROP_EVENTS.add(PERMANENT_FOCUS_OWNER);
+		PROP_EVENTS.add(ACTIVE_WINDOW);
 	}
 
-	public static void prime() {
+	/**
+	 * Starts tracking focus and mouse activity to determine the active
+	 * {@code Dockable}. Subsequent calls have no effect.
+	 */
+	public static synchronized void prime() {
+		if (!installed) {
+			installed = true;
+			primeImpl();
+		}
 	}
 
 	private static void primeImpl() {
-		PROP_EVENTS.add(PERMANENT_FOCUS_OWNER);
-		PROP_EVENTS.add(ACTIVE_WINDOW);
-
 		EventQueue.invokeLater(() -> {
 			KeyboardFocusManager focusManager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
 			focusManager.addPropertyChangeListener(SINGLETON);
@@ -91,8 +99,18 @@ public class ActiveDockableListener implements PropertyChangeListener, ChangeLis
 				component = SwingUtilities.getDeepestComponentAt(component, p.x, p.y);
 			}
 
-			// request activation of the dockable that encloses this component
-			ActiveDockableTracker.requestDockableActivation(component);
+			// request activation of the dockable that encloses this component.
+			// if it is already the active one, only its window needs activating.
+			Dockable dockable = DockingUtility.getAncestorDockable(component);
+			if (dockable == null) {
+				return;
+			}
+			if (DockingUtility.isActive(dockable)) {
+				SwingUtility.activateWindow(component);
+			}
+			else {
+				ActiveDockableTracker.requestDockableActivation(component, dockable, false);
+			}
 		}
 	}
 
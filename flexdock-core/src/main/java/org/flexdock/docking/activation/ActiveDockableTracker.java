@@ -202,6 +202,9 @@ public class ActiveDockableTracker {
 			setActive(false);
 			currentDockable = dockable;
 			setActive(true);
+			if (dockable != null) {
+				FocusRing.dockableActivated(dockable);
+			}
 			changeSupport.firePropertyChange(CURRENT_DOCKABLE, oldValue, dockable);
 		}
 	}
@@ -0,0 +1,220 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.docking.activation;
+
+import org.flexdock.docking.Dockable;
+import org.flexdock.docking.DockingManager;
+import org.flexdock.docking.DockingPort;
+import org.flexdock.util.RootWindow;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Maintains the order in which keyboard view cycling visits the embedded
+ * {@code Dockables} of a single root window, along with the order in which
+ * they were most recently activated.
+ * <p>
+ * The traversal order follows the docking layout: split panes are visited
+ * left-to-right (or top-to-bottom) and tabs in tab order, wrapping around at
+ * either end. It is computed with a single walk of the layout the first time
+ * it is needed after the layout of a {@code DefaultDockingPort} has changed,
+ * so cycling itself never searches the hierarchy. Changes made through other
+ * {@code DockingPort} implementations are picked up once an unknown
+ * {@code Dockable} is cycled from. The most-recently-used order is updated as
+ * {@code Dockables} are activated.
+ * <p>
+ * {@code FocusRings} are only to be used from the event dispatch thread.
+ */
+public class FocusRing {
+	private static final String KEY = "FocusRing.KEY";
+
+	// incremented whenever the docking layout of any window changes
+	private static int layoutVersion;
+
+	private final RootWindow window;
+	private final List<Dockable> ring = new ArrayList<>();
+	private final HashMap<Dockable, Integer> indices = new HashMap<>();
+	// most recently activated first
+	private final List<Dockable> recent = new ArrayList<>();
+	private int version = -1;
+
+	public static FocusRing getFocusRing(Component component) {
+		RootWindow window = RootWindow.getRootContainer(component);
+		if (window == null) {
+			return null;
+		}
+
+		FocusRing focusRing = (FocusRing) window.getClientProperty(KEY);
+		if (focusRing == null) {
+			focusRing = new FocusRing(window);
+			window.putClientProperty(KEY, focusRing);
+		}
+		return focusRing;
+	}
+
+	/**
+	 * Marks the {@code FocusRings} of all windows as out of date, so that they
+	 * walk the docking layout again the next time they are used. This is
+	 * called by {@code DefaultDockingPort} whenever its docked component or
+	 * tabs change.
+	 */
+	public static void layoutChanged() {
+		layoutVersion++;
+	}
+
+	static void dockableActivated(Dockable dockable) {
+		FocusRing focusRing = getFocusRing(dockable.getComponent());
+		if (focusRing != null) {
+			focusRing.recent.remove(dockable);
+			focusRing.recent.add(0, dockable);
+		}
+	}
+
+	private FocusRing(RootWindow window) {
+		this.window = window;
+	}
+
+	/**
+	 * Returns the {@code Dockable} that follows (or, for a negative
+	 * {@code direction}, precedes) the specified {@code Dockable} in layout
+	 * order. If {@code current} is not part of this ring, the first or last
+	 * {@code Dockable} is returned, respectively. Returns {@code null} if the
+	 * window contains no embedded {@code Dockables}.
+	 *
+	 * @param current   the {@code Dockable} to start from
+	 * @param direction the direction to move in
+	 * @return the next {@code Dockable} in the given direction
+	 */
+	public Dockable getNext(Dockable current, int direction) {
+		Integer index = indexOf(current);
+		int size = ring.size();
+		if (size == 0) {
+			return null;
+		}
+
+		if (index == null) {
+			return direction > 0 ? ring.get(0) : ring.get(size - 1);
+		}
+		int next = index + (direction > 0 ? 1 : -1);
+		return ring.get((next + size) % size);
+	}
+
+	/**
+	 * Returns the most recently activated {@code Dockable} other than the
+	 * specified one, or {@code null} if there is none. Invoking this
+	 * repeatedly with its own result switches back and forth between the two
+	 * most recently used {@code Dockables}.
+	 *
+	 * @param current the currently active {@code Dockable}
+	 * @return the most recently activated other {@code Dockable}
+	 */
+	public Dockable getRecent(Dockable current) {
+		validate();
+		for (Dockable dockable : recent) {
+			if (dockable != current) {
+				return dockable;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the embedded {@code Dockables} of this window in layout order.
+	 *
+	 * @return the {@code Dockables} in layout order
+	 */
+	public List<Dockable> getDockables() {
+		validate();
+		return Collections.unmodifiableList(new ArrayList<>(ring));
+	}
+
+	/**
+	 * Returns the embedded {@code Dockables} of this window that have been
+	 * activated, most recently activated first.
+	 *
+	 * @return the {@code Dockables} in most-recently-used order
+	 */
+	public List<Dockable> getRecentDockables() {
+		validate();
+		return Collections.unmodifiableList(new ArrayList<>(recent));
+	}
+
+	private Integer indexOf(Dockable dockable) {
+		validate();
+		Integer index = dockable == null ? null : indices.get(dockable);
+		if (index == null && dockable != null && getFocusRing(dockable.getComponent()) == this) {
+			// the layout changed without us being told about it
+			version = -1;
+			validate();
+			index = indices.get(dockable);
+		}
+		return index;
+	}
+
+	private void validate() {
+		if (version == layoutVersion) {
+			return;
+		}
+
+		ring.clear();
+		indices.clear();
+		collect(window.getRootContainer());
+		recent.retainAll(indices.keySet());
+		version = layoutVersion;
+	}
+
+	private void collect(Component comp) {
+		if (comp == null) {
+			return;
+		}
+
+		Dockable dockable = DockingManager.getDockable(comp);
+		if (dockable != null) {
+			if (!indices.containsKey(dockable)) {
+				indices.put(dockable, ring.size());
+				ring.add(dockable);
+			}
+		}
+		else if (comp instanceof DockingPort) {
+			collect(((DockingPort) comp).getDockedComponent());
+		}
+		else if (comp instanceof JSplitPane) {
+			JSplitPane split = (JSplitPane) comp;
+			collect(split.getLeftComponent());
+			collect(split.getRightComponent());
+		}
+		else if (comp instanceof JTabbedPane) {
+			JTabbedPane tabs = (JTabbedPane) comp;
+			for (int i = 0; i < tabs.getTabCount(); i++) {
+				collect(tabs.getComponentAt(i));
+			}
+		}
+		else if (comp instanceof Container) {
+			for (Component child : ((Container) comp).getComponents()) {
+				collect(child);
+			}
+		}
+	}
+}
@@ -23,6 +23,7 @@ package org.flexdock.docking.defaults;
 
 import org.flexdock.docking.*;
 import org.flexdock.docking.activation.ActiveDockableTracker;
+import org.flexdock.docking.activation.FocusRing;
 import org.flexdock.docking.event.DockingEvent;
 import org.flexdock.docking.event.DockingListener;
 import org.flexdock.docking.event.TabbedDragListener;
@@ -43,7 +44,13 @@ import javax.swing.Timer;
 import javax.swing.border.Border;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.awt.event.ContainerEvent;
+import java.awt.event.ContainerListener;
+import java.awt.event.InputEvent;
 import java.awt.image.BufferedImage;
+import java.beans.PropertyChangeListener;
 import java.io.Serializable;
 import java.util.*;
 
@@ -247,10 +254,66 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 
 	private static final WeakHashMap<Component, String> COMPONENT_TITLES = new WeakHashMap<>();
 
+	private static final ContainerListener TAB_LISTENER = new ContainerListener() {
+		@Override
+		public void componentAdded(ContainerEvent e) {
+			tabsChanged(e.getContainer());
+		}
+
+		@Override
+		public void componentRemoved(ContainerEvent e) {
+			tabsChanged(e.getContainer());
+		}
+
+		private void tabsChanged(Container tabs) {
+			if (tabs.getParent() instanceof DefaultDockingPort) {
+				((DefaultDockingPort) tabs.getParent()).layoutChanged();
+			}
+		}
+	};
+
+	private static final PropertyChangeListener DIVIDER_LISTENER = evt -> {
+		Component split = (Component) evt.getSource();
+		Container parent = split.getParent();
+		if (parent instanceof DefaultDockingPort) {
+			((DefaultDockingPort) parent).layoutRevision++;
+			// the layout code moves dividers all the time, only the user's
+			// moves are worth saving
+			if (isUserInput(split)) {
+				DockingManager.scheduleAutoPersist();
+			}
+		}
+	};
+
+	private static boolean isUserInput(Component split) {
+		AWTEvent current = EventQueue.getCurrentEvent();
+		if (!(current instanceof InputEvent) || !(current.getSource() instanceof Component)) {
+			return false;
+		}
+		Component source = (Component) current.getSource();
+		return source == split || SwingUtilities.isDescendingFrom(source, split);
+	}
+
+	// split paths without a constant percentage store the divider location
+	// relative to the split's size, so they change when the split is resized
+	private static final ComponentAdapter SPLIT_RESIZE_LISTENER = new ComponentAdapter() {
+		@Override
+		public void componentResized(ComponentEvent e) {
+			Container parent = e.getComponent().getParent();
+			if (parent instanceof DefaultDockingPort) {
+				((DefaultDockingPort) parent).layoutRevision++;
+			}
+		}
+	};
+
     private ArrayList<DockingListener> dockingListeners;
 
 	private Component dockedComponent;
 
+	private DockableIndex dockableIndex;
+
+	private int layoutRevision;
+
 	private BorderManager borderManager;
 
 	private String persistentId;
@@ -1580,6 +1643,7 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 		if (docked == comp) {
 			dockedComponent = null;
 		}
+		layoutChanged();
 	}
 
 	/**
@@ -1592,6 +1656,7 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 	public void removeAll() {
 		super.removeAll();
 		dockedComponent = null;
+		layoutChanged();
 	}
 
 	/**
@@ -1635,6 +1700,19 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 
 		dockedComponent = c;
 		Component ret = super.add(dockedComponent);
+		if (c instanceof JTabbedPane) {
+			// track tabs added and removed after the tabbed pane is installed
+			JTabbedPane tabs = (JTabbedPane) c;
+			tabs.removeContainerListener(TAB_LISTENER);
+			tabs.addContainerListener(TAB_LISTENER);
+		}
+		else if (c instanceof JSplitPane) {
+			c.removePropertyChangeListener(JSplitPane.DIVIDER_LOCATION_PROPERTY, DIVIDER_LISTENER);
+			c.addPropertyChangeListener(JSplitPane.DIVIDER_LOCATION_PROPERTY, DIVIDER_LISTENER);
+			c.removeComponentListener(SPLIT_RESIZE_LISTENER);
+			c.addComponentListener(SPLIT_RESIZE_LISTENER);
+		}
+		layoutChanged();
 
 		// calling doLayout here to properly set the component's size
 		// validate throws an error
@@ -1702,7 +1780,75 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 	@Override
 	public Set getDockables() {
 		// return ALL dockables, recursing to maximum depth
-		return getDockableSet(-1, 0, null);
+		return new HashSet<>(getDockableIndex().getDockables(this));
+	}
+
+	/**
+	 * Returns the {@code DockableIndex} of the layout containing this
+	 * {@code DockingPort}. The index is shared by all sub-ports of a split
+	 * layout and is owned by its outermost {@code DefaultDockingPort}.
+	 *
+	 * @return the {@code DockableIndex} of the enclosing layout
+	 * @see DockableIndex
+	 */
+	public DockableIndex getDockableIndex() {
+		DefaultDockingPort root = this;
+		for (DefaultDockingPort port = getLayoutParent(); port != null; port = port.getLayoutParent()) {
+			root = port;
+		}
+
+		if (root.dockableIndex == null) {
+			root.dockableIndex = new DockableIndex(root);
+		}
+		return root.dockableIndex;
+	}
+
+	void discardDockableIndex() {
+		dockableIndex = null;
+	}
+
+	private DefaultDockingPort getLayoutParent() {
+		Container parent = getParent();
+		Container grandParent = parent == null ? null : parent.getParent();
+		return parent instanceof JSplitPane && grandParent instanceof DefaultDockingPort
+				? (DefaultDockingPort) grandParent : null;
+	}
+
+	/**
+	 * Returns a counter that changes whenever the docking path of a
+	 * {@code Dockable} embedded within this {@code DockingPort}, at any depth,
+	 * may have changed. This is the case whenever the docked component of this
+	 * port or of one of its immediate sub-ports changes, and whenever the
+	 * divider of a split pane docked within this port moves or the split pane
+	 * is resized. A
+	 * {@code Dockable's} path is therefore unchanged as long as it is embedded
+	 * within the same chain of {@code DockingPorts} and none of their
+	 * revisions have changed.
+	 *
+	 * @return the layout revision of this {@code DockingPort}
+	 * @see org.flexdock.docking.state.DockingPath#create(Dockable)
+	 */
+	public int getLayoutRevision() {
+		return layoutRevision;
+	}
+
+	private void layoutChanged() {
+		// the paths of dockables within our sibling port refer to our
+		// docked component as well
+		layoutRevision++;
+		DefaultDockingPort layoutParent = getLayoutParent();
+		if (layoutParent != null) {
+			layoutParent.layoutRevision++;
+		}
+		FocusRing.layoutChanged();
+
+		// a port may have owned an index before it was nested, so every index
+		// up the chain is marked stale
+		for (DefaultDockingPort port = this; port != null; port = port.getLayoutParent()) {
+			if (port.dockableIndex != null) {
+				port.dockableIndex.invalidate();
+			}
+		}
 	}
 
     protected Set<Dockable> getDockableSet(int depth, int level, Class desiredClass) {
@@ -2049,7 +2195,7 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 		node.setUserObject(this);
 		ArrayList splitPaneResizeList = new ArrayList();
 		constructLayout(node, splitPaneResizeList);
-		deferSplitPaneValidation(splitPaneResizeList);
+		deferSplitPaneValidation(node, splitPaneResizeList);
 		revalidate();
 	}
 
@@ -2104,13 +2250,13 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 		split.setRightComponent(right);
 	}
 
-	private void deferSplitPaneValidation(final ArrayList splitNodes) {
+	private void deferSplitPaneValidation(final LayoutNode root, final ArrayList splitNodes) {
         if (timer == null) {
             timer = new Timer(15, e -> {
                 Runnable r = () -> {
                     synchronized (lock) {
                         if (timer != null) {
-                            processImportedSplitPaneValidation(splitNodes);
+                            processImportedSplitPaneValidation(root, splitNodes);
                         }
                     }
                 };
@@ -2121,7 +2267,7 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 		}
 	}
 
-	private void processImportedSplitPaneValidation(ArrayList splitNodes) {
+	private void processImportedSplitPaneValidation(LayoutNode root, ArrayList splitNodes) {
 		synchronized (lock) {
 			int len = splitNodes.size();
 			if (len == 0) {
@@ -2148,24 +2294,35 @@ public class DefaultDockingPort extends JPanel implements DockingPort {
 			timer.stop();
 			timer = null;
 
-			// if we're ready to render, then loop through all the splitNodes and
-			// set the split dividers to their appropriate locations.
-            for (Object splitNode : splitNodes) {
-                node = (SplitNode) splitNode;
-                split = node.getSplitPane();
-                float percent = node.getPercentage();
-                split.setDividerLocation(percent);
-
-                // make sure to invoke the installed BorderManager how that we have
-                // a hierarchy of DockingPorts. otherwise, we may end up with some
-                // ugly nested borders.
-                DockingPort port = DockingUtility.getParentDockingPort(split);
-                if (port instanceof DefaultDockingPort) {
-                    ((DefaultDockingPort) port).evaluateDockingBorderStatus();
-                }
-
-                split.validate();
-            }
+			// if we're ready to render, then solve the divider locations for
+			// the entire tree at once. nested split panes haven't been sized
+			// yet, so we can't rely on them to compute their own locations
+			// from a proportion without a layout pass per level.
+			Map<SplitNode, Integer> locations = new SplitLayoutSolver().solve(root, getSize());
+			for (Map.Entry<SplitNode, Integer> entry : locations.entrySet()) {
+				node = entry.getKey();
+				split = node.getSplitPane();
+				float percent = node.getPercentage();
+				int location = entry.getValue();
+				if (split instanceof DockingSplitPane) {
+					((DockingSplitPane) split).setDividerLocation(location, percent);
+				}
+				else {
+					split.setDividerLocation(location);
+				}
+
+				// make sure to invoke the installed BorderManager how that we have
+				// a hierarchy of DockingPorts. otherwise, we may end up with some
+				// ugly nested borders.
+				DockingPort port = DockingUtility.getParentDockingPort(split);
+				if (port instanceof DefaultDockingPort) {
+					((DefaultDockingPort) port).evaluateDockingBorderStatus();
+				}
+			}
+
+			// a single validation lays out the whole tree with its final
+			// divider locations.
+			validate();
 		}
 	}
 
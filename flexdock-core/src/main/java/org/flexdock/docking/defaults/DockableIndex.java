@@ -0,0 +1,271 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.docking.defaults;
+
+import org.flexdock.docking.Dockable;
+import org.flexdock.docking.DockingManager;
+import org.flexdock.docking.DockingPort;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Indexes the {@code Dockables} embedded within the layout of a root
+ * {@code DefaultDockingPort}. For each {@code Dockable}, the index records
+ * the sub-{@code DockingPort} that directly contains it, its tab index, the
+ * path of split pane sides leading to that sub-port and its depth within the
+ * layout. It also records the set of {@code Dockables} below every
+ * sub-port, so that {@code getDockables()} no longer has to traverse the
+ * container hierarchy.
+ * <p>
+ * The index is owned by the outermost {@code DefaultDockingPort} of a split
+ * layout. Every structural change within that layout, such as docking,
+ * undocking, adding or removing a tab or collapsing a split, marks the index
+ * stale. It is then rebuilt in a single traversal the next time it is
+ * queried, so any number of lookups between two docking operations cost a
+ * single traversal. A stale index holds no references to the layout.
+ *
+ * @see DefaultDockingPort#getDockableIndex()
+ */
+public final class DockableIndex {
+
+	/**
+	 * The location of a single {@code Dockable} within an indexed layout.
+	 */
+	public static final class Entry {
+		private final DefaultDockingPort port;
+		private final int tabIndex;
+		private final int[] splitPath;
+
+		private Entry(DefaultDockingPort port, int tabIndex, int[] splitPath) {
+			this.port = port;
+			this.tabIndex = tabIndex;
+			this.splitPath = splitPath;
+		}
+
+		/**
+		 * Returns the sub-{@code DockingPort} directly containing the
+		 * {@code Dockable}.
+		 *
+		 * @return the containing {@code DockingPort}
+		 */
+		public DefaultDockingPort getDockingPort() {
+			return port;
+		}
+
+		/**
+		 * Returns the index of the {@code Dockable's} tab, or {@code -1} if
+		 * its {@code DockingPort} does not contain a tabbed layout.
+		 *
+		 * @return the tab index of the {@code Dockable}
+		 */
+		public int getTabIndex() {
+			return tabIndex;
+		}
+
+		/**
+		 * Returns the sides of the nested split panes leading from the root
+		 * {@code DockingPort} to the containing sub-port. {@code 0} denotes
+		 * the left or top component of a split pane and {@code 1} denotes the
+		 * right or bottom component.
+		 *
+		 * @return a copy of the split path, empty if the {@code Dockable} is
+		 * docked directly within the root {@code DockingPort}
+		 */
+		public int[] getSplitPath() {
+			return splitPath.clone();
+		}
+
+		/**
+		 * Returns the number of split panes between the root
+		 * {@code DockingPort} and the containing sub-port.
+		 *
+		 * @return the split depth of the {@code Dockable}
+		 */
+		public int getDepth() {
+			return splitPath.length;
+		}
+
+		@Override
+		public String toString() {
+			return "Entry[port=" + port.getPersistentId() + ", tab=" + tabIndex
+					+ ", path=" + Arrays.toString(splitPath) + "]";
+		}
+	}
+
+	private static final int[] ROOT_PATH = new int[0];
+
+	private final DefaultDockingPort root;
+
+	private final Map<Dockable, Entry> entries = new LinkedHashMap<>();
+
+	private final Map<DockingPort, Set<Dockable>> dockablesByPort = new HashMap<>();
+
+	private boolean valid;
+
+	DockableIndex(DefaultDockingPort root) {
+		this.root = root;
+	}
+
+	/**
+	 * Returns the root {@code DockingPort} of the indexed layout.
+	 *
+	 * @return the root {@code DockingPort}
+	 */
+	public DefaultDockingPort getRootPort() {
+		return root;
+	}
+
+	/**
+	 * Returns the location of the specified {@code Dockable}.
+	 *
+	 * @param dockable the {@code Dockable} to look up
+	 * @return the location of {@code dockable}, or {@code null} if it is not
+	 * embedded within the indexed layout
+	 */
+	public Entry getEntry(Dockable dockable) {
+		validate();
+		return entries.get(dockable);
+	}
+
+	/**
+	 * Indicates whether the specified {@code Dockable} is embedded within the
+	 * indexed layout.
+	 *
+	 * @param dockable the {@code Dockable} to look up
+	 * @return {@code true} if {@code dockable} is embedded within the indexed
+	 * layout; {@code false} otherwise
+	 */
+	public boolean contains(Dockable dockable) {
+		return getEntry(dockable) != null;
+	}
+
+	/**
+	 * Returns the {@code Dockables} embedded within the indexed layout, in
+	 * layout order.
+	 *
+	 * @return an unmodifiable {@code Set} of {@code Dockables}
+	 */
+	public Set<Dockable> getDockables() {
+		validate();
+		return Collections.unmodifiableSet(entries.keySet());
+	}
+
+	/**
+	 * Returns the {@code Dockables} embedded within the specified
+	 * {@code DockingPort} and all of its sub-ports.
+	 *
+	 * @param port a {@code DockingPort} within the indexed layout
+	 * @return an unmodifiable {@code Set} of {@code Dockables}, empty if
+	 * {@code port} contains no {@code Dockables} or is not part of the indexed
+	 * layout
+	 */
+	public Set<Dockable> getDockables(DockingPort port) {
+		validate();
+		Set<Dockable> dockables = dockablesByPort.get(port);
+		return dockables == null ? Collections.emptySet() : Collections.unmodifiableSet(dockables);
+	}
+
+	/**
+	 * Returns the {@code Dockables} sharing the sub-{@code DockingPort} of the
+	 * specified {@code Dockable}, including the {@code Dockable} itself.
+	 *
+	 * @param dockable the {@code Dockable} to look up
+	 * @return an unmodifiable {@code Set} of {@code Dockables}, empty if
+	 * {@code dockable} is not embedded within the indexed layout
+	 */
+	public Set<Dockable> getSiblings(Dockable dockable) {
+		Entry entry = getEntry(dockable);
+		return entry == null ? Collections.emptySet() : getDockables(entry.port);
+	}
+
+	/**
+	 * Indicates whether the index is up to date with the layout.
+	 *
+	 * @return {@code false} if the index will be rebuilt by the next query
+	 */
+	public boolean isValid() {
+		return valid;
+	}
+
+	void invalidate() {
+		// drop the references right away rather than on the next query, which
+		// may never come
+		valid = false;
+		entries.clear();
+		dockablesByPort.clear();
+	}
+
+	private void validate() {
+		if (valid) {
+			return;
+		}
+
+		index(root, ROOT_PATH);
+		valid = true;
+	}
+
+	private Set<Dockable> index(DefaultDockingPort port, int[] path) {
+		Set<Dockable> dockables = new LinkedHashSet<>();
+		dockablesByPort.put(port, dockables);
+
+		Component docked = port.getDockedComponent();
+		if (docked instanceof JTabbedPane) {
+			JTabbedPane tabs = (JTabbedPane) docked;
+			int len = tabs.getTabCount();
+			for (int i = 0; i < len; i++) {
+				add(DockingManager.getDockable(tabs.getComponentAt(i)), port, i, path, dockables);
+			}
+		}
+		else if (docked instanceof JSplitPane) {
+			JSplitPane split = (JSplitPane) docked;
+			indexSide(split.getLeftComponent(), path, 0, dockables);
+			indexSide(split.getRightComponent(), path, 1, dockables);
+		}
+		else if (docked != null) {
+			add(DockingManager.getDockable(docked), port, -1, path, dockables);
+		}
+		return dockables;
+	}
+
+	private void indexSide(Component side, int[] path, int index, Set<Dockable> dockables) {
+		if (side instanceof DefaultDockingPort) {
+			// a port that owned an index before it was nested won't be asked for it again
+			((DefaultDockingPort) side).discardDockableIndex();
+			int[] subPath = Arrays.copyOf(path, path.length + 1);
+			subPath[path.length] = index;
+			dockables.addAll(index((DefaultDockingPort) side, subPath));
+		}
+	}
+
+	private void add(Dockable dockable, DefaultDockingPort port, int tabIndex, int[] path, Set<Dockable> dockables) {
+		if (dockable != null) {
+			entries.put(dockable, new Entry(port, tabIndex, path));
+			dockables.add(dockable);
+		}
+	}
+}
@@ -176,6 +176,24 @@ public class DockingSplitPane extends JSplitPane {
 		setResizeWeight(percent);
 	}
 	
+	/**
+	 * Sets the divider location in pixels while recording the proportion from
+	 * which the location was derived. This behaves like
+	 * {@code setDividerLocation(double)}, except that the pixel location is
+	 * supplied by the caller instead of being computed from the current size
+	 * of this split pane. This allows divider locations to be applied before
+	 * this split pane has been sized by its parent.
+	 *
+	 * @param location the divider location in pixels
+	 * @param percent  the proportion represented by {@code location}
+	 * @see SplitLayoutSolver
+	 */
+	public void setDividerLocation(int location, double percent) {
+		this.percent = percent;
+		super.setDividerLocation(location);
+		setResizeWeight(percent);
+	}
+	
 	public double getPercent() {
 		if (constantPercent) {
 			return percent;
@@ -0,0 +1,241 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.docking.defaults;
+
+import org.flexdock.docking.Dockable;
+import org.flexdock.docking.state.LayoutNode;
+import org.flexdock.docking.state.tree.DockableNode;
+import org.flexdock.docking.state.tree.DockingNode;
+import org.flexdock.docking.state.tree.DockingPortNode;
+import org.flexdock.docking.state.tree.SplitNode;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Enumeration;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Computes the pixel divider location of every split within a
+ * {@code LayoutNode} tree in a single top-down pass. Restoring a layout by
+ * setting each {@code JSplitPane} divider independently requires a layout
+ * pass per split before the nested split panes know their own size. This
+ * class instead derives the extent of every nested split from the root size
+ * and the stored {@code SplitNode} percentages, so that all dividers may be
+ * applied at once followed by a single validation.
+ * <p>
+ * Divider locations honor the minimum sizes of the components on either side
+ * of each split. If both minimum sizes cannot be satisfied, the stored
+ * percentage is used as-is.
+ * <p>
+ * Nodes that have not yet been realized are inspected without creating any
+ * components, so a solution may also be computed for a layout that has not
+ * been imported into a {@code DockingPort}.
+ *
+ * @see DefaultDockingPort#importLayout(LayoutNode)
+ * @see SplitNode#getPercentage()
+ */
+public class SplitLayoutSolver {
+	/**
+	 * The divider size assumed for splits that have not been realized yet.
+	 * This matches the divider size assigned by
+	 * {@code DefaultDockingStrategy.createSplitPane()}.
+	 */
+	public static final int DEFAULT_DIVIDER_SIZE = 3;
+
+	private static final Insets EMPTY_INSETS = new Insets(0, 0, 0, 0);
+
+	private final Map<LayoutNode, Dimension> minimumSizes = new IdentityHashMap<>();
+
+	/**
+	 * Computes the divider location of every {@code SplitNode} within the
+	 * specified layout tree, given the size of the {@code Container} that
+	 * hosts the root node. The returned map iterates in top-down order,
+	 * parents before children.
+	 *
+	 * @param root the root of the layout tree, typically a {@code DockingPortNode}
+	 * @param size the size of the component represented by {@code root}
+	 * @return a map of each {@code SplitNode} to its divider location in pixels,
+	 * relative to the origin of its split pane.
+	 * @throws IllegalArgumentException if the percentage of a {@code SplitNode}
+	 *                                  is not between 0.0 and 1.0, as
+	 *                                  {@code JSplitPane.setDividerLocation(double)}
+	 *                                  would.
+	 */
+	public Map<SplitNode, Integer> solve(LayoutNode root, Dimension size) {
+		Map<SplitNode, Integer> locations = new LinkedHashMap<>();
+		if (root != null && size != null) {
+			minimumSizes.clear();
+			solve(root, size.width, size.height, locations);
+			minimumSizes.clear();
+		}
+		return locations;
+	}
+
+	private void solve(LayoutNode node, int width, int height, Map<SplitNode, Integer> locations) {
+		if (node instanceof SplitNode) {
+			solveSplit((SplitNode) node, width, height, locations);
+			return;
+		}
+
+		if (node instanceof DockingPortNode) {
+			Insets in = getInsets(node);
+			int w = width - in.left - in.right;
+			int h = height - in.top - in.bottom;
+			for (Enumeration<?> en = node.children(); en.hasMoreElements(); ) {
+				solve((LayoutNode) en.nextElement(), w, h, locations);
+			}
+		}
+	}
+
+	private void solveSplit(SplitNode node, int width, int height, Map<SplitNode, Integer> locations) {
+		boolean horizontal = node.getOrientation() != JSplitPane.VERTICAL_SPLIT;
+		Insets in = getInsets(node);
+		int divider = getDividerSize(node);
+		int size = horizontal ? width : height;
+		int leading = horizontal ? in.left : in.top;
+		int trailing = horizontal ? in.right : in.bottom;
+
+		// mirror JSplitPane.setDividerLocation(double) so that the solution
+		// matches what the split pane itself would compute for the same
+		// proportion.
+		double percent = node.getPercentage();
+		if (percent < 0 || percent > 1) {
+			throw new IllegalArgumentException("Split percentage must be between 0.0 and 1.0: " + percent
+					+ " (sibling " + node.getSiblingId() + ")");
+		}
+		int location = (int) ((size - divider) * percent);
+
+		LayoutNode left = getChild(node, 0);
+		LayoutNode right = getChild(node, 1);
+		int min = leading + getMinimumExtent(left, horizontal);
+		int max = size - trailing - divider - getMinimumExtent(right, horizontal);
+		if (min <= max) {
+			location = Math.max(min, Math.min(location, max));
+		}
+		location = Math.max(location, 0);
+		locations.put(node, location);
+
+		int leftExtent = Math.max(location - leading, 0);
+		int rightExtent = Math.max(size - location - divider - trailing, 0);
+		int cross = horizontal ? height - in.top - in.bottom : width - in.left - in.right;
+		if (left != null) {
+			solve(left, horizontal ? leftExtent : cross, horizontal ? cross : leftExtent, locations);
+		}
+		if (right != null) {
+			solve(right, horizontal ? rightExtent : cross, horizontal ? cross : rightExtent, locations);
+		}
+	}
+
+	private int getMinimumExtent(LayoutNode node, boolean horizontal) {
+		if (node == null) {
+			return 0;
+		}
+		Dimension d = getMinimumSize(node);
+		return horizontal ? d.width : d.height;
+	}
+
+	/**
+	 * Returns the minimum size of the component represented by the specified
+	 * node. Split and docking port nodes are measured structurally from their
+	 * children rather than through their Swing minimum size, since the
+	 * latter depends upon the container hierarchy already being in place.
+	 * Docking ports that carry an explicit minimum size are the exception.
+	 *
+	 * @param node the node to measure
+	 * @return the minimum size of the specified node. Never {@code null}.
+	 */
+	protected Dimension getMinimumSize(LayoutNode node) {
+		Dimension cached = minimumSizes.get(node);
+		if (cached != null) {
+			return cached;
+		}
+
+		Dimension d = new Dimension();
+		Object obj = getRealizedObject(node);
+		if (node instanceof DockableNode) {
+			Dockable dockable = ((DockableNode) node).getDockable();
+			Component comp = dockable == null ? null : dockable.getComponent();
+			if (comp != null) {
+				d.setSize(comp.getMinimumSize());
+			}
+		}
+		else if (obj instanceof Component && ((Component) obj).isMinimumSizeSet()) {
+			d.setSize(((Component) obj).getMinimumSize());
+		}
+		else if (node instanceof SplitNode) {
+			boolean horizontal = ((SplitNode) node).getOrientation() != JSplitPane.VERTICAL_SPLIT;
+			Dimension left = getChildMinimumSize(node, 0);
+			Dimension right = getChildMinimumSize(node, 1);
+			int divider = getDividerSize(node);
+			if (horizontal) {
+				d.setSize(left.width + divider + right.width, Math.max(left.height, right.height));
+			}
+			else {
+				d.setSize(Math.max(left.width, right.width), left.height + divider + right.height);
+			}
+			addInsets(d, getInsets(node));
+		}
+		else if (node != null) {
+			// docking port nodes hold either a single split or a set of
+			// dockables sharing a tabbed pane.
+			for (Enumeration<?> en = node.children(); en.hasMoreElements(); ) {
+				Dimension child = getMinimumSize((LayoutNode) en.nextElement());
+				d.width = Math.max(d.width, child.width);
+				d.height = Math.max(d.height, child.height);
+			}
+			addInsets(d, getInsets(node));
+		}
+
+		minimumSizes.put(node, d);
+		return d;
+	}
+
+	private Dimension getChildMinimumSize(LayoutNode node, int index) {
+		LayoutNode child = getChild(node, index);
+		return child == null ? new Dimension() : getMinimumSize(child);
+	}
+
+	private static void addInsets(Dimension d, Insets in) {
+		d.width += in.left + in.right;
+		d.height += in.top + in.bottom;
+	}
+
+	private static LayoutNode getChild(LayoutNode node, int index) {
+		return index < node.getChildCount() ? (LayoutNode) node.getChildAt(index) : null;
+	}
+
+	private static int getDividerSize(LayoutNode node) {
+		Object obj = getRealizedObject(node);
+		return obj instanceof JSplitPane ? ((JSplitPane) obj).getDividerSize() : DEFAULT_DIVIDER_SIZE;
+	}
+
+	private static Insets getInsets(LayoutNode node) {
+		Object obj = getRealizedObject(node);
+		return obj instanceof Container ? ((Container) obj).getInsets() : EMPTY_INSETS;
+	}
+
+	private static Object getRealizedObject(LayoutNode node) {
+		// don't trigger the lazy-load of split panes and docking ports while
+		// measuring; only consult what has already been built.
+		return node instanceof DockingNode ? ((DockingNode) node).peekUserObject() : null;
+	}
+}
@@ -53,7 +53,7 @@ public class DragManager extends MouseAdapter implements MouseMotionListener {
     private Point dragOffset = new Point();
 
     public static void prime() {
-        // execute static initializer to preload resources
+        // drag resources are otherwise loaded on the first drag
         EffectsManager.prime();
     }
 
@@ -21,6 +21,7 @@ package org.flexdock.docking.drag.effects;
 
 import org.flexdock.docking.Dockable;
 import org.flexdock.util.ResourceManager;
+import org.flexdock.util.StartupTimings;
 import org.flexdock.util.Utilities;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
@@ -38,18 +39,30 @@ public class EffectsManager {
     private static DragPreview defaultPreview;
     private static DragPreview customPreview;
 
-    static {
-        prime();
-    }
-
+    /**
+     * Loads the default drag preview from the drag effects configuration if it
+     * has not been loaded yet. This otherwise happens on the first call to
+     * {@code getPreview()}, so an application may call this up front to keep
+     * the configuration parsing out of its first drag operation.
+     */
     public static void prime() {
-        Document config = ResourceManager.getDocument(CONFIG_URI);
-        defaultPreview = loadDefaultPreview(config);
+        synchronized (LOCK) {
+            if (defaultPreview == null) {
+                StartupTimings.time("drag effects", () -> {
+                    Document config = ResourceManager.getDocument(CONFIG_URI);
+                    defaultPreview = loadDefaultPreview(config);
+                });
+            }
+        }
     }
 
     public static DragPreview getPreview() {
         synchronized (LOCK) {
-            return customPreview == null ? defaultPreview : customPreview;
+            if (customPreview != null) {
+                return customPreview;
+            }
+            prime();
+            return defaultPreview;
         }
     }
 
@@ -28,9 +28,13 @@ import java.applet.Applet;
 import java.awt.*;
 import java.awt.event.HierarchyEvent;
 import java.awt.event.HierarchyListener;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Christopher Butler
@@ -40,6 +44,13 @@ public class DockingPortTracker implements HierarchyListener {
 	private static final DockingPortTracker SINGLETON = new DockingPortTracker();
 	private static final WeakHashMap<RootWindow, RootDockingPortInfo> TRACKERS_BY_WINDOW = new WeakHashMap<>();
 	private static final WeakHashMap<DockingPort, Object> DOCKING_PORTS = new WeakHashMap<>();
+	// indexes over the root ports tracked by TRACKERS_BY_WINDOW, so that lookups
+	// don't have to visit every window
+	private static final ConcurrentHashMap<String, WeakReference<DockingPort>> PORTS_BY_ID = new ConcurrentHashMap<>();
+	private static final Map<DockingPort, RootDockingPortInfo> INFOS_BY_PORT = Collections.synchronizedMap(new WeakHashMap<>());
+	// the id each port is indexed under in PORTS_BY_ID, which may differ from
+	// its current one
+	private static final Map<DockingPort, String> IDS_BY_PORT = Collections.synchronizedMap(new WeakHashMap<>());
 
 	public static HierarchyListener getInstance() {
 		return SINGLETON;
@@ -48,8 +59,14 @@ public class DockingPortTracker implements HierarchyListener {
 	public static void remove(Component c) {
 		RootWindow window = RootWindow.getRootContainer(c);
 		if (window != null) {
+			RootDockingPortInfo info;
 			synchronized (TRACKERS_BY_WINDOW) {
-				TRACKERS_BY_WINDOW.remove(window);
+				info = TRACKERS_BY_WINDOW.remove(window);
+			}
+			if (info != null) {
+				for (int i = 0; info.getPort(i) != null; i++) {
+					unindex(info.getPort(i));
+				}
 			}
 		}
 	}
@@ -79,10 +96,23 @@ public class DockingPortTracker implements HierarchyListener {
 			return null;
 		}
 
+		WeakReference<DockingPort> ref = PORTS_BY_ID.get(portId);
+		DockingPort indexed = ref == null ? null : ref.get();
+		RootDockingPortInfo indexedInfo = indexed == null ? null : INFOS_BY_PORT.get(indexed);
+		if (indexedInfo != null && indexedInfo.getPort(portId) == indexed) {
+			return indexed;
+		}
+		if (ref != null && indexed == null) {
+			PORTS_BY_ID.remove(portId, ref);
+		}
+
+		// RootDockingPortInfo may also be modified directly, so fall back to
+		// searching every window before giving up
 		synchronized (TRACKERS_BY_WINDOW) {
 			for (RootDockingPortInfo info : TRACKERS_BY_WINDOW.values()) {
 				DockingPort port = info.getPort(portId);
 				if (port != null) {
+					index(port, info);
 					return port;
 				}
 			}
@@ -95,9 +125,15 @@ public class DockingPortTracker implements HierarchyListener {
 			return null;
 		}
 
+		RootDockingPortInfo indexed = INFOS_BY_PORT.get(port);
+		if (indexed != null && indexed.contains(port)) {
+			return indexed;
+		}
+
 		synchronized (TRACKERS_BY_WINDOW) {
 			for (RootDockingPortInfo info : TRACKERS_BY_WINDOW.values()) {
 				if (info.contains(port)) {
+					index(port, info);
 					return info;
 				}
 			}
@@ -105,6 +141,24 @@ public class DockingPortTracker implements HierarchyListener {
 		return null;
 	}
 
+	private static void index(DockingPort port, RootDockingPortInfo info) {
+		String portId = port.getPersistentId();
+		String oldId = IDS_BY_PORT.put(port, portId);
+		if (oldId != null && !oldId.equals(portId)) {
+			PORTS_BY_ID.computeIfPresent(oldId, (id, ref) -> ref.get() == port ? null : ref);
+		}
+		INFOS_BY_PORT.put(port, info);
+		PORTS_BY_ID.put(portId, new WeakReference<>(port));
+	}
+
+	private static void unindex(DockingPort port) {
+		INFOS_BY_PORT.remove(port);
+		String portId = IDS_BY_PORT.remove(port);
+		if (portId != null) {
+			PORTS_BY_ID.computeIfPresent(portId, (id, ref) -> ref.get() == port ? null : ref);
+		}
+	}
+
 	/**
 	 * Returns the {@code DockingPort} for {@code comp}. If {@code comp} is
 	 * {@code null}, then this method returns {@code null}.
@@ -156,7 +210,12 @@ public class DockingPortTracker implements HierarchyListener {
 		RootDockingPortInfo info = findInfoByPort(port);
 		if (info != null) {
 			info.remove(port);
+			// drops the port under the id it had before this update
+			unindex(port);
 			info.add(port);
+			if (info.getPort(port.getPersistentId()) == port) {
+				index(port, info);
+			}
 		}
 	}
 
@@ -209,6 +268,9 @@ public class DockingPortTracker implements HierarchyListener {
 		RootDockingPortInfo info = getRootDockingPortInfo(window);
 		if (info != null) {
 			info.add(port);
+			if (info.getPort(port.getPersistentId()) == port) {
+				index(port, info);
+			}
 		}
 	}
 
@@ -216,6 +278,7 @@ public class DockingPortTracker implements HierarchyListener {
 		RootDockingPortInfo info = getRootDockingPortInfo(window);
 		if (info != null) {
 			info.remove(port);
+			unindex(port);
 		}
 	}
 
@@ -33,6 +33,8 @@ public class RootDockingPortInfo {
 	private WeakReference<RootWindow> windowRef;
 	private final ArrayList<DockingPort> rootPorts = new ArrayList<>();
 	private final HashMap<String, DockingPort> portsById = new HashMap<>();
+	// the id each port was added under, which may differ from its current one
+	private final HashMap<DockingPort, String> idsByPort = new HashMap<>();
 	private String mainPortId;
 
 	RootDockingPortInfo(RootWindow window) {
@@ -52,7 +54,7 @@ public class RootDockingPortInfo {
 	}
 
 	public boolean contains(DockingPort port) {
-		return port != null && portsById.containsValue(port);
+		return port != null && idsByPort.containsKey(port);
 	}
 
 	public synchronized void add(DockingPort port) {
@@ -61,6 +63,7 @@ public class RootDockingPortInfo {
 		}
 
 		portsById.put(port.getPersistentId(), port);
+		idsByPort.put(port, port.getPersistentId());
 		rootPorts.add(port);
 	}
 
@@ -69,18 +72,7 @@ public class RootDockingPortInfo {
 			return;
 		}
 
-		String key = port.getPersistentId();
-		if (!contains(key)) {
-			key = null;
-			for (String tmpKey : portsById.keySet()) {
-				DockingPort tmp = portsById.get(tmpKey);
-				if (tmp == port) {
-					key = tmpKey;
-					break;
-				}
-			}
-		}
-
+		String key = idsByPort.remove(port);
 		if (key != null) {
 			portsById.remove(key);
 		}
@@ -186,7 +186,7 @@ public class DockingPath implements Cloneable, Serializable {
 		tabbed = tabs;
 	}
 	
-	public List getNodes() {
+	public List<SplitNode> getNodes() {
 		return nodes;
 	}
 
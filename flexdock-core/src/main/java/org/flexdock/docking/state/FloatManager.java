@@ -23,6 +23,9 @@ import org.flexdock.docking.Dockable;
 import org.flexdock.docking.floating.frames.DockingFrame;
 
 import java.awt.*;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
 
 /**
  * This interface defines the API used for floating and grouping <code>Dockables</code>.  Classes
@@ -56,6 +59,26 @@ public interface FloatManager {
 
 	DockingFrame floatDockable(Dockable dockable, Component frameOwner, Rectangle screenBounds);
 
+	/**
+	 * Sends the specified <code>Dockables</code> into floating <code>DockingFrames</code> as a batch.
+	 * By default, each <code>Dockable</code> is floated separately; implementations should override
+	 * this method to create and show the frame of each <code>FloatingGroup</code> only once.
+	 *
+	 * @param dockables  the <code>Dockables</code> to float
+	 * @param frameOwner the owner of any <code>DockingFrames</code> that have to be created
+	 * @return the <code>DockingFrames</code> containing the floated <code>Dockables</code>
+	 */
+	default Set<DockingFrame> floatDockables(Collection<? extends Dockable> dockables, Component frameOwner) {
+		Set<DockingFrame> frames = new LinkedHashSet<>();
+		for (Dockable dockable : dockables) {
+			DockingFrame frame = floatDockable(dockable, frameOwner);
+			if (frame != null) {
+				frames.add(frame);
+			}
+		}
+		return frames;
+	}
+
 	class Stub implements FloatManager {
 
 		@Override
@@ -23,6 +23,7 @@ import org.flexdock.docking.Dockable;
 import org.flexdock.docking.DockingPort;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * @author Christopher Butler
@@ -43,6 +44,25 @@ public interface LayoutManager {
 
 	boolean store(String persistenceKey) throws IOException, PersistenceException;
 
+	/**
+	 * Stores the layout without waiting for it to be written. The layout is
+	 * captured before this method returns, so this method should be called from
+	 * the event dispatch thread, but serializing and writing it may happen in
+	 * the background. The default implementation stores synchronously.
+	 *
+	 * @return a future completed with the result of {@link #store(String)}, or
+	 * exceptionally with the exception it threw.
+	 */
+	default CompletableFuture<Boolean> storeAsync(String persistenceKey) {
+		CompletableFuture<Boolean> future = new CompletableFuture<>();
+		try {
+			future.complete(store(persistenceKey));
+		} catch (IOException | PersistenceException | RuntimeException ex) {
+			future.completeExceptionally(ex);
+		}
+		return future;
+	}
+
 	boolean load() throws IOException, PersistenceException;
 
 	boolean load(String persistenceKey) throws IOException, PersistenceException;
@@ -20,8 +20,10 @@
 package org.flexdock.docking.state;
 
 import org.flexdock.docking.Dockable;
+import org.flexdock.docking.DockingManager;
 
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * @author Christopher Butler
@@ -38,6 +40,26 @@ public interface MinimizationManager {
 
 	void setMinimized(Dockable dockable, boolean minimized, Component window, int constraint);
 
+	/**
+	 * Minimizes or restores the specified {@code Dockables} as a batch. Each
+	 * {@code Dockable} is minimized using the constraint recorded in its
+	 * {@code DockingState}. By default, each {@code Dockable} is handled
+	 * separately; implementations should override this method to update their
+	 * display only once for the whole batch.
+	 *
+	 * @param dockables the {@code Dockables} to minimize or restore
+	 * @param minimized {@code true} to minimize; {@code false} to restore
+	 * @param window    the window in which the {@code Dockables} are minimized
+	 * @see DockingState#getMinimizedConstraint()
+	 */
+	default void setMinimized(Collection<? extends Dockable> dockables, boolean minimized, Component window) {
+		for (Dockable dockable : dockables) {
+			DockingState info = DockingManager.getLayoutManager().getDockingState(dockable);
+			int constraint = info == null ? UNSPECIFIED_LAYOUT_CONSTRAINT : info.getMinimizedConstraint();
+			setMinimized(dockable, minimized, window, constraint);
+		}
+	}
+
 	class Stub implements MinimizationManager {
 		@Override
 		public boolean close(Dockable dockable) {
@@ -28,6 +28,8 @@ import java.util.Enumeration;
  * @author Christopher Butler
  */
 public abstract class DockingNode extends DefaultMutableTreeNode implements LayoutNode {
+	// pinned to the value computed for earlier versions, whose serialized form is unchanged
+	private static final long serialVersionUID = 3480107825001578312L;
 
 	@Override
 	public Object getUserObject() {
@@ -42,6 +44,18 @@ public abstract class DockingNode extends DefaultMutableTreeNode implements Layo
 	@Override
 	public abstract Object getDockingObject();
 
+	/**
+	 * Returns the user object currently bound to this node without lazily
+	 * resolving it through {@code getDockingObject()}. This allows a layout
+	 * tree to be inspected without creating any components as a side effect.
+	 *
+	 * @return the bound user object, or {@code null} if it has not been
+	 * resolved yet.
+	 */
+	public Object peekUserObject() {
+		return userObject;
+	}
+
 	protected abstract DockingNode shallowClone();
 
 	@Override
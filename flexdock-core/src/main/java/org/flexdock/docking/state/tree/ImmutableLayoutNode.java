@@ -0,0 +1,385 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.docking.state.tree;
+
+import org.flexdock.docking.DockingConstants;
+import org.flexdock.docking.state.LayoutNode;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable counterpart to the {@code DockingNode} tree. Once created, an
+ * {@code ImmutableLayoutNode} and all of its descendants never change, so a
+ * tree may be shared freely between any number of {@code Layout} snapshots
+ * and perspectives without copying.
+ * <p>
+ * Modifications are made by path copying: methods such as
+ * {@code replace(int[], ImmutableLayoutNode)} return a new root that shares
+ * every unchanged subtree with the original and copies only the nodes along
+ * the path to the modified node.
+ * <p>
+ * {@code DockingNode} trees remain the representation consumed by
+ * {@code DockingPort.importLayout()}, which binds live components to each
+ * node as it builds the layout. {@code toLayoutNode()} produces a fresh
+ * mutable adapter tree for that purpose and {@code valueOf(LayoutNode)}
+ * converts an exported tree back into immutable form.
+ *
+ * @see DockingNode
+ * @see org.flexdock.docking.DockingPort#importLayout(LayoutNode)
+ */
+@SuppressWarnings(value = {"serial"})
+public final class ImmutableLayoutNode implements Serializable {
+
+	/**
+	 * The kind of {@code DockingNode} represented by an
+	 * {@code ImmutableLayoutNode}.
+	 */
+	public enum Kind {
+		DOCKING_PORT,
+		SPLIT,
+		DOCKABLE
+	}
+
+	private static final ImmutableLayoutNode[] NO_CHILDREN = new ImmutableLayoutNode[0];
+
+	private final Kind kind;
+	private final String dockableId;
+	private final int orientation;
+	private final int region;
+	private final float percentage;
+	private final String siblingId;
+	private final DockingConstants.Region dockingRegion;
+	private final ImmutableLayoutNode[] children;
+
+	private transient int hash;
+
+	private ImmutableLayoutNode(Kind kind, String dockableId, int orientation, int region, float percentage,
+								String siblingId, DockingConstants.Region dockingRegion, ImmutableLayoutNode[] children) {
+		this.kind = kind;
+		this.dockableId = dockableId;
+		this.orientation = orientation;
+		this.region = region;
+		this.percentage = percentage;
+		this.siblingId = siblingId;
+		this.dockingRegion = dockingRegion;
+		this.children = children;
+	}
+
+	/**
+	 * Creates a docking port node containing the specified children.
+	 *
+	 * @param children either a single split node or any number of dockable nodes
+	 * @return a new docking port node
+	 */
+	public static ImmutableLayoutNode dockingPort(ImmutableLayoutNode... children) {
+		return new ImmutableLayoutNode(Kind.DOCKING_PORT, null, 0, 0, 0, null, null, copyOf(children));
+	}
+
+	/**
+	 * Creates a split node with the specified attributes. The meaning of each
+	 * attribute matches the corresponding property of {@code SplitNode}.
+	 *
+	 * @return a new split node
+	 * @see SplitNode
+	 */
+	public static ImmutableLayoutNode split(int orientation, int region, float percentage, String siblingId,
+											DockingConstants.Region dockingRegion, ImmutableLayoutNode left, ImmutableLayoutNode right) {
+		ImmutableLayoutNode[] kids = left == null ? NO_CHILDREN : right == null ? new ImmutableLayoutNode[]{left} : new ImmutableLayoutNode[]{left, right};
+		return new ImmutableLayoutNode(Kind.SPLIT, null, orientation, region, percentage, siblingId, dockingRegion, kids);
+	}
+
+	/**
+	 * Creates a leaf node for the {@code Dockable} with the specified
+	 * persistent ID.
+	 *
+	 * @param dockableId the persistent ID of the {@code Dockable}
+	 * @return a new dockable node
+	 */
+	public static ImmutableLayoutNode dockable(String dockableId) {
+		return new ImmutableLayoutNode(Kind.DOCKABLE, dockableId, 0, 0, 0, null, null, NO_CHILDREN);
+	}
+
+	/**
+	 * Converts a tree of {@code DockingNodes} into immutable form. Any user
+	 * objects bound to the specified tree are not retained. Nodes of an
+	 * unknown type are skipped. If {@code node} is {@code null} or of an
+	 * unknown type, this method returns {@code null}.
+	 *
+	 * @param node the root of the tree to convert
+	 * @return an immutable copy of the specified tree
+	 */
+	public static ImmutableLayoutNode valueOf(LayoutNode node) {
+		if (node == null) {
+			return null;
+		}
+
+		List<ImmutableLayoutNode> list = new ArrayList<>(node.getChildCount());
+		for (Enumeration<?> en = node.children(); en.hasMoreElements(); ) {
+			ImmutableLayoutNode child = valueOf((LayoutNode) en.nextElement());
+			if (child != null) {
+				list.add(child);
+			}
+		}
+		ImmutableLayoutNode[] kids = list.isEmpty() ? NO_CHILDREN : list.toArray(NO_CHILDREN);
+
+		if (node instanceof SplitNode) {
+			SplitNode split = (SplitNode) node;
+			return new ImmutableLayoutNode(Kind.SPLIT, null, split.getOrientation(), split.getRegion(),
+					split.getPercentage(), split.getSiblingId(), split.getDockingRegion(), kids);
+		}
+		if (node instanceof DockableNode) {
+			return dockable(((DockableNode) node).getDockableId());
+		}
+		if (node instanceof DockingPortNode) {
+			return new ImmutableLayoutNode(Kind.DOCKING_PORT, null, 0, 0, 0, null, null, kids);
+		}
+		return null;
+	}
+
+	/**
+	 * Builds a new tree of {@code DockingNodes} equivalent to this node. The
+	 * returned tree is not shared with any other caller and may be passed to
+	 * {@code DockingPort.importLayout()}.
+	 *
+	 * @return a new mutable copy of this tree
+	 */
+	public LayoutNode toLayoutNode() {
+		DockingNode node;
+		switch (kind) {
+		case SPLIT:
+			SplitNode split = new SplitNode(orientation, region, percentage, siblingId);
+			split.setDockingRegion(dockingRegion);
+			node = split;
+			break;
+		case DOCKABLE:
+			DockableNode dockableNode = new DockableNode();
+			dockableNode.setDockableId(dockableId);
+			return dockableNode;
+		default:
+			node = new DockingPortNode();
+			break;
+		}
+
+		for (ImmutableLayoutNode child : children) {
+			node.add((DockingNode) child.toLayoutNode());
+		}
+		return node;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getDockableId() {
+		return dockableId;
+	}
+
+	public int getOrientation() {
+		return orientation;
+	}
+
+	public int getRegion() {
+		return region;
+	}
+
+	public float getPercentage() {
+		return percentage;
+	}
+
+	public String getSiblingId() {
+		return siblingId;
+	}
+
+	public DockingConstants.Region getDockingRegion() {
+		return dockingRegion;
+	}
+
+	public int getChildCount() {
+		return children.length;
+	}
+
+	public ImmutableLayoutNode getChildAt(int index) {
+		return children[index];
+	}
+
+	public List<ImmutableLayoutNode> getChildren() {
+		return Collections.unmodifiableList(Arrays.asList(children));
+	}
+
+	/**
+	 * Returns the persistent IDs of all {@code Dockables} within this tree, in
+	 * depth-first order.
+	 *
+	 * @return the IDs of all dockable nodes in this tree
+	 */
+	public Set<String> getDockableIds() {
+		Set<String> ids = new LinkedHashSet<>();
+		collectDockableIds(ids);
+		return ids;
+	}
+
+	private void collectDockableIds(Set<String> ids) {
+		if (kind == Kind.DOCKABLE && dockableId != null) {
+			ids.add(dockableId);
+		}
+		for (ImmutableLayoutNode child : children) {
+			child.collectDockableIds(ids);
+		}
+	}
+
+	/**
+	 * Returns the descendant found by following the specified child indices
+	 * from this node. An empty path returns this node.
+	 *
+	 * @param path the child index to follow at each level
+	 * @return the node at the specified path
+	 * @throws IndexOutOfBoundsException if the path does not exist
+	 */
+	public ImmutableLayoutNode getNode(int... path) {
+		ImmutableLayoutNode node = this;
+		for (int index : path) {
+			node = node.children[index];
+		}
+		return node;
+	}
+
+	/**
+	 * Returns a tree in which the node at the specified path has been replaced.
+	 * Only the nodes between this node and the replaced node are copied; all
+	 * other subtrees are shared with this tree. This tree is left unchanged.
+	 *
+	 * @param path        the child index to follow at each level
+	 * @param replacement the node to install at the end of {@code path}
+	 * @return the root of the modified tree
+	 * @throws IndexOutOfBoundsException if the path does not exist
+	 */
+	public ImmutableLayoutNode replace(int[] path, ImmutableLayoutNode replacement) {
+		Objects.requireNonNull(replacement);
+		return replace(path, 0, replacement);
+	}
+
+	private ImmutableLayoutNode replace(int[] path, int depth, ImmutableLayoutNode replacement) {
+		if (depth == path.length) {
+			return replacement;
+		}
+
+		int index = path[depth];
+		ImmutableLayoutNode child = children[index].replace(path, depth + 1, replacement);
+		return withChild(index, child);
+	}
+
+	/**
+	 * Returns a copy of this node with the child at the specified index
+	 * replaced. All other children are shared.
+	 *
+	 * @param index the index of the child to replace
+	 * @param child the new child
+	 * @return a copy of this node, or this node if {@code child} is already at
+	 * the specified index
+	 */
+	public ImmutableLayoutNode withChild(int index, ImmutableLayoutNode child) {
+		Objects.requireNonNull(child);
+		if (children[index] == child) {
+			return this;
+		}
+		ImmutableLayoutNode[] kids = children.clone();
+		kids[index] = child;
+		return new ImmutableLayoutNode(kind, dockableId, orientation, region, percentage, siblingId, dockingRegion, kids);
+	}
+
+	/**
+	 * Returns a copy of this split node with a new divider percentage. All
+	 * children are shared.
+	 *
+	 * @param percent the new divider percentage
+	 * @return a copy of this node, or this node if the percentage is unchanged
+	 */
+	public ImmutableLayoutNode withPercentage(float percent) {
+		if (Float.compare(percent, percentage) == 0) {
+			return this;
+		}
+		return new ImmutableLayoutNode(kind, dockableId, orientation, region, percent, siblingId, dockingRegion, children);
+	}
+
+	private static ImmutableLayoutNode[] copyOf(ImmutableLayoutNode[] nodes) {
+		if (nodes == null || nodes.length == 0) {
+			return NO_CHILDREN;
+		}
+		ImmutableLayoutNode[] copy = nodes.clone();
+		for (ImmutableLayoutNode node : copy) {
+			Objects.requireNonNull(node);
+		}
+		return copy;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof ImmutableLayoutNode)) {
+			return false;
+		}
+
+		ImmutableLayoutNode other = (ImmutableLayoutNode) obj;
+		// shared subtrees compare by identity above, so only divergent
+		// branches are walked here.
+		return hashCode() == other.hashCode()
+				&& kind == other.kind
+				&& orientation == other.orientation
+				&& region == other.region
+				&& Float.compare(percentage, other.percentage) == 0
+				&& dockingRegion == other.dockingRegion
+				&& Objects.equals(dockableId, other.dockableId)
+				&& Objects.equals(siblingId, other.siblingId)
+				&& Arrays.equals(children, other.children);
+	}
+
+	@Override
+	public int hashCode() {
+		int h = hash;
+		if (h == 0) {
+			h = Objects.hash(kind, dockableId, orientation, region, percentage, siblingId, dockingRegion);
+			h = 31 * h + Arrays.hashCode(children);
+			hash = h;
+		}
+		return h;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("ImmutableLayoutNode[").append(kind);
+		if (kind == Kind.DOCKABLE) {
+			sb.append("; id=").append(dockableId);
+		}
+		else if (kind == Kind.SPLIT) {
+			sb.append("; orient=").append(orientation).append("; percent=").append(percentage);
+		}
+		return sb.append("; children=").append(children.length).append(']').toString();
+	}
+}
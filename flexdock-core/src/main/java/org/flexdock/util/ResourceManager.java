@@ -26,37 +26,101 @@ import javax.xml.parsers.DocumentBuilderFactory;
 import java.awt.*;
 import java.io.File;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * This class provides {@code static} convenience methods for resource
  * management, including resource lookups and image, icon, and cursor creation.
+ * <p>
+ * Resolved resource {@code URLs} are cached by {@code uri}, and decoded
+ * images, icons, documents, and properties are held in memory-sensitive
+ * caches that the garbage collector may clear under memory pressure. Use
+ * {@code invalidate(String uri)} or {@code clearCache()} when a resource
+ * changes at runtime.
  *
  * @author Chris Butler
  */
 public class ResourceManager {
+	private static final Map<String, URL> RESOLVED = new ConcurrentHashMap<>();
+	private static final SoftCache<Image> IMAGES = new SoftCache<>();
+	private static final SoftCache<ImageIcon> ICONS = new SoftCache<>();
+	private static final SoftCache<Document> DOCUMENTS = new SoftCache<>();
+	private static final SoftCache<Properties> PROPERTIES = new SoftCache<>();
 
 	private ResourceManager() {
 	}
 
+	/**
+	 * Discards any cached lookup result and decoded content for the specified
+	 * resource {@code uri}, so that the next request reloads it. If
+	 * {@code uri} is {@code null}, no action is taken.
+	 *
+	 * @param uri the {@code String} describing the resource to be invalidated
+	 * @see #clearCache()
+	 */
+	public static void invalidate(String uri) {
+		if (uri == null) {
+			return;
+		}
+		RESOLVED.remove(uri);
+		if (!uri.startsWith("/")) {
+			RESOLVED.remove("/" + uri);
+		}
+		IMAGES.remove(uri);
+		ICONS.remove(uri);
+		DOCUMENTS.remove(uri);
+		PROPERTIES.remove(uri);
+	}
+
+	/**
+	 * Discards all cached lookup results and decoded resource content.
+	 *
+	 * @see #invalidate(String)
+	 */
+	public static void clearCache() {
+		RESOLVED.clear();
+		IMAGES.clear();
+		ICONS.clear();
+		DOCUMENTS.clear();
+		PROPERTIES.clear();
+	}
+
 	/**
 	 * Performs resource lookups using the {@code ClassLoader} and classpath.
 	 * This method attemps to consolidate several techniques used for resource
 	 * lookup in different situations, providing a common API that works the
 	 * same from standalone applications to applets to multiple-classloader
 	 * container-managed applications. Returns {@code null} if specified
-	 * resource cannot be found.
+	 * resource cannot be found. Successful lookups are cached, so subsequent
+	 * calls for the same {@code uri} do not search again until the resource
+	 * is invalidated.
 	 *
 	 * @param uri the String describing the resource to be looked up
 	 * @return a {@code URL} representing the resource that has been looked up.
+	 * @see #invalidate(String)
 	 */
 	public static URL getResource(String uri) {
 		if (uri == null) {
 			return null;
 		}
 
+		URL url = RESOLVED.get(uri);
+		if (url == null) {
+			url = findResource(uri);
+			if (url != null) {
+				RESOLVED.put(uri, url);
+			}
+		}
+		return url;
+	}
+
+	private static URL findResource(String uri) {
 		URL url = ResourceManager.class.getResource(uri);
 		if (url == null) {
 			url = ClassLoader.getSystemResource(uri);
@@ -85,9 +149,9 @@ public class ResourceManager {
 	}
 
 	/**
-	 * Returns an {@code Image} object based on the specified resource URL. Does
-	 * not perform any caching on the {@code Image} object, so a new object will
-	 * be created with each call to this method.
+	 * Returns an {@code Image} object based on the specified resource URL. The
+	 * {@code Image} is cached, so repeated calls return the same object for as
+	 * long as it remains in memory.
 	 *
 	 * @param url the {@code String} describing the resource to be looked up
 	 * @return an {@code Image} created from the specified resource URL
@@ -95,8 +159,7 @@ public class ResourceManager {
 	 */
 	public static Image createImage(String url) {
 		try {
-			URL location = getResource(url);
-			return Toolkit.getDefaultToolkit().createImage(location);
+			return IMAGES.get(url, uri -> Toolkit.getDefaultToolkit().createImage(getResource(uri)));
 		}
 		catch (NullPointerException e) {
 			throw new NullPointerException("Unable to locate image: " + url);
@@ -107,7 +170,8 @@ public class ResourceManager {
 	 * Returns an {@code ImageIcon} object based on the specified resource URL.
 	 * Uses the {@code ImageIcon} constructor internally instead of dispatching
 	 * to {@code createImage(String url)}, so {@code Image} objects are cached
-	 * via the {@code MediaTracker}.
+	 * via the {@code MediaTracker}. The {@code ImageIcon} itself is cached as
+	 * well and shared between callers, so it should not be modified.
 	 *
 	 * @param url the {@code String} describing the resource to be looked up
 	 * @return an {@code ImageIcon} created from the specified resource URL
@@ -115,8 +179,7 @@ public class ResourceManager {
 	 */
 	public static ImageIcon createIcon(String url) {
 		try {
-			URL location = getResource(url);
-			return new ImageIcon(location);
+			return ICONS.get(url, uri -> new ImageIcon(getResource(uri)));
 		}
 		catch (NullPointerException e) {
 			throw new NullPointerException("Unable to locate image: " + url);
@@ -129,6 +192,9 @@ public class ResourceManager {
 	 * {@code String} via {@code getResource(String uri)} and dispatches to
 	 * {@code getDocument(URL url)}. If the specified {@code uri} is
 	 * {@code null}, then this method returns {@code null}.
+	 * <p>
+	 * The parsed {@code Document} is cached and each call returns a deep copy
+	 * of it, so callers are free to modify the result.
 	 *
 	 * @param uri the {@code String} describing the resource to be looked up
 	 * @return a {@code Document} object based on the specified resource
@@ -137,8 +203,18 @@ public class ResourceManager {
 	 * @see #getDocument(URL)
 	 */
 	public static Document getDocument(String uri) {
-		URL resource = getResource(uri);
-		return getDocument(resource);
+		if (uri == null) {
+			return null;
+		}
+		Document document = DOCUMENTS.get(uri, key -> getDocument(getResource(key)));
+		if (document == null) {
+			return null;
+		}
+		// DOM implementations aren't thread-safe even for reads, and the cached
+		// document is never handed out, so it serves as its own lock
+		synchronized (document) {
+			return (Document) document.cloneNode(true);
+		}
 	}
 
 	/**
@@ -185,6 +261,9 @@ public class ResourceManager {
 	 * {@code failSilent} is {@code false}, then the ensuing
 	 * {@code NullPointerException's} stacktrace will be printed to the
 	 * {@code System.err} before returning.
+	 * <p>
+	 * The loaded {@code Properties} are cached and each call returns a copy of
+	 * them, so callers are free to modify the result.
 	 *
 	 * @param uri        the {@code String} describing the resource to be looked up
 	 * @param failSilent {@code true} if no errors are to be reported to the
@@ -195,8 +274,16 @@ public class ResourceManager {
 	 * @see #getProperties(URL, boolean)
 	 */
 	public static Properties getProperties(String uri, boolean failSilent) {
-		URL url = getResource(uri);
-		return getProperties(url, failSilent);
+		if (uri == null) {
+			return getProperties((URL) null, failSilent);
+		}
+		Properties props = PROPERTIES.get(uri, key -> getProperties(getResource(key), failSilent));
+		if (props == null) {
+			return null;
+		}
+		Properties copy = new Properties();
+		copy.putAll(props);
+		return copy;
 	}
 
 	/**
@@ -255,4 +342,34 @@ public class ResourceManager {
 			System.err.println("Exception: " + e.getMessage());
 		}
 	}
+
+	/**
+	 * Maps resource {@code uris} to decoded content through soft references,
+	 * so that cached content may be reclaimed when memory runs low. Loads are
+	 * not synchronized; concurrent misses for the same {@code uri} may each
+	 * load the resource, with the last result retained.
+	 */
+	private static class SoftCache<T> {
+		private final Map<String, SoftReference<T>> entries = new ConcurrentHashMap<>();
+
+		T get(String uri, Function<String, T> loader) {
+			SoftReference<T> ref = entries.get(uri);
+			T value = ref == null ? null : ref.get();
+			if (value == null) {
+				value = loader.apply(uri);
+				if (value != null) {
+					entries.put(uri, new SoftReference<>(value));
+				}
+			}
+			return value;
+		}
+
+		void remove(String uri) {
+			entries.remove(uri);
+		}
+
+		void clear() {
+			entries.clear();
+		}
+	}
 }
@@ -0,0 +1,93 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.util;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records how long each framework initialization phase took. Phases are
+ * recorded in the order in which they complete, so a report lists the work
+ * done eagerly at class-load time first, followed by subsystems that were
+ * brought up on demand later in the application's life.
+ */
+public final class StartupTimings {
+	private static final Map<String, Long> TIMINGS = new LinkedHashMap<>();
+
+	private StartupTimings() {
+	}
+
+	/**
+	 * Runs the specified initialization task and records its duration under
+	 * the specified phase name. If the phase has already been recorded, the
+	 * durations are summed.
+	 *
+	 * @param phase the name of the initialization phase
+	 * @param task  the work performed by the phase
+	 */
+	public static void time(String phase, Runnable task) {
+		long start = System.nanoTime();
+		try {
+			task.run();
+		}
+		finally {
+			long elapsed = System.nanoTime() - start;
+			synchronized (TIMINGS) {
+				TIMINGS.merge(phase, elapsed, Long::sum);
+			}
+		}
+	}
+
+	/**
+	 * Returns the recorded phase durations in nanoseconds, keyed by phase name
+	 * in completion order. The returned {@code Map} is a snapshot and is not
+	 * updated as further phases complete.
+	 *
+	 * @return the recorded phase durations
+	 */
+	public static Map<String, Long> getTimings() {
+		synchronized (TIMINGS) {
+			return Collections.unmodifiableMap(new LinkedHashMap<>(TIMINGS));
+		}
+	}
+
+	/**
+	 * Returns a human-readable report of the recorded phase durations, one
+	 * phase per line, followed by the total.
+	 *
+	 * @return the startup timing report
+	 */
+	public static String getReport() {
+		StringBuilder sb = new StringBuilder();
+		long total = 0;
+		for (Map.Entry<String, Long> entry : getTimings().entrySet()) {
+			total += entry.getValue();
+			append(sb, entry.getKey(), entry.getValue());
+		}
+		append(sb, "total", total);
+		return sb.toString();
+	}
+
+	private static void append(StringBuilder sb, String phase, long nanos) {
+		sb.append(String.format(Locale.ROOT, "%-28s %9.3f ms%n", phase, nanos / 1e6));
+	}
+}
@@ -19,9 +19,10 @@
  */
 package org.flexdock.util;
 
+import org.flexdock.docking.Dockable;
 import org.flexdock.docking.DockingPort;
+import org.flexdock.docking.activation.FocusRing;
 import org.flexdock.docking.defaults.DefaultDockingPort;
-import org.flexdock.docking.defaults.DockingSplitPane;
 
 import javax.swing.*;
 import java.awt.*;
@@ -337,83 +338,44 @@ public class SwingUtility {
 		EventQueue.invokeLater(() -> setSplitDivider(split, percent));
 	}
 
+	/**
+	 * Moves the focus to the next embedded {@code Dockable} in layout order
+	 * within the window that currently has the focus, wrapping around at
+	 * either end. A negative {@code direction} moves to the previous
+	 * {@code Dockable} instead.
+	 *
+	 * @param direction the direction to move in
+	 * @see FocusRing#getNext(Dockable, int)
+	 */
 	public static void toggleFocus(int direction) {
-		KeyboardFocusManager manager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
-		Component focused = manager.getFocusOwner();
-		Component newFocused = getNext(focused, direction);
-		if (newFocused != null) {
-			SwingUtility.focus(newFocused);
+		Component focused = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+		FocusRing ring = FocusRing.getFocusRing(focused);
+		Dockable next = ring == null ? null : ring.getNext(getFocusedDockable(focused), direction);
+		if (next != null) {
+			SwingUtility.focus(next.getComponent());
 		}
 	}
 
-	private static Component getNext(Component comp, int direction) {
-		Component next;
-		JTabbedPane tab;
-		if (comp instanceof JTabbedPane) {
-			tab = (JTabbedPane) comp;
-		}
-		else {
-			tab = (JTabbedPane) SwingUtilities.getAncestorOfClass(JTabbedPane.class, comp);
-		}
-
-		if (tab != null) {
-			int index = tab.getSelectedIndex();
-			if (direction > 0 && index < tab.getTabCount() - 1) {
-				tab.setSelectedIndex(index + 1);
-				next = tab;
-			}
-			else if (direction <= 0 && index > 0) {
-				tab.setSelectedIndex(index - 1);
-				next = tab;
-			}
-			else {
-				DefaultDockingPort port = (DefaultDockingPort) SwingUtilities.getAncestorOfClass(DefaultDockingPort.class, tab);
-				next = getNext(port, direction);
-			}
-		}
-		else {
-			DockingSplitPane pane = (DockingSplitPane) SwingUtilities.getAncestorOfClass(DockingSplitPane.class, comp);
-			if (pane == null) {
-				return getFirstComponent(comp, direction);
-			}
-
-			Component left = pane.getLeftComponent();
-			Component right = pane.getRightComponent();
-
-			if (SwingUtilities.isDescendingFrom(comp, left)) {
-				if (direction > 0) {
-					next = getFirstComponent(right, direction);
-				}
-				else {
-					DefaultDockingPort port = (DefaultDockingPort) SwingUtilities.getAncestorOfClass(DefaultDockingPort.class, pane);
-					next = getNext(port, direction);
-				}
-			}
-			else {
-				if (direction > 0) {
-					DefaultDockingPort port = (DefaultDockingPort) SwingUtilities.getAncestorOfClass(DefaultDockingPort.class, pane);
-					next = getNext(port, direction);
-				}
-				else {
-					next = getFirstComponent(left, direction);
-				}
-			}
+	/**
+	 * Moves the focus to the most recently activated {@code Dockable} other
+	 * than the current one within the window that currently has the focus.
+	 *
+	 * @see FocusRing#getRecent(Dockable)
+	 */
+	public static void toggleRecentFocus() {
+		Component focused = KeyboardFocusManager.getCurrentKeyboardFocusManager().getFocusOwner();
+		FocusRing ring = FocusRing.getFocusRing(focused);
+		Dockable recent = ring == null ? null : ring.getRecent(getFocusedDockable(focused));
+		if (recent != null) {
+			SwingUtility.focus(recent.getComponent());
 		}
-
-		return next;
 	}
 
-	private static Component getFirstComponent(Component parent, int direction) {
-		Component component = parent;
-		while (component instanceof DefaultDockingPort) {
-			component = ((DockingPort) component).getDockedComponent();
-			if (component instanceof DockingSplitPane) {
-				DockingSplitPane pane = (DockingSplitPane) component;
-				component = direction > 0 ? pane.getLeftComponent() : pane.getRightComponent();
-			}
+	private static Dockable getFocusedDockable(Component focused) {
+		if (focused instanceof JTabbedPane) {
+			focused = ((JTabbedPane) focused).getSelectedComponent();
 		}
-
-		return component;
+		return DockingUtility.getAncestorDockable(focused);
 	}
 
 	public static void setSystemLookAndFeel() {
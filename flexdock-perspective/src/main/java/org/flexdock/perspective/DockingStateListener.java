@@ -23,6 +23,7 @@ import org.flexdock.docking.Dockable;
 import org.flexdock.docking.DockingConstants;
 import org.flexdock.docking.DockingManager;
 import org.flexdock.docking.DockingPort;
+import org.flexdock.docking.defaults.DefaultDockingPort;
 import org.flexdock.docking.defaults.DefaultDockingStrategy;
 import org.flexdock.docking.event.DockingEvent;
 import org.flexdock.docking.event.DockingListener;
@@ -38,6 +39,12 @@ import org.flexdock.util.SwingUtility;
 
 import javax.swing.*;
 import java.awt.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
 
 /**
  * @author Christopher Butler
@@ -46,6 +53,13 @@ public class DockingStateListener extends DockingListener.Stub {
 
     private boolean isEnabled = true;
 
+    private final Map<Dockable, LayoutStamp> layoutStamps = new WeakHashMap<>();
+
+    // ids of dockables whose state is to be updated on the next event dispatch cycle
+    private final Set<String> dirtyDockables = new LinkedHashSet<>();
+
+    private boolean updateScheduled;
+
     public synchronized boolean isEnabled() {
         return isEnabled;
     }
@@ -59,6 +73,8 @@ public class DockingStateListener extends DockingListener.Stub {
         if(!isEnabled()) {
             return;
         }
+        // a retained perspective tree that has lost a dockable cannot be reused
+        PerspectiveManager.invalidateRealizedLayouts(dockingEvent.getDockable());
 
         Dockable dockable = dockingEvent.getDockable();
         DockingState info = getDockingState(dockable);
@@ -76,12 +92,13 @@ public class DockingStateListener extends DockingListener.Stub {
             floatManager.removeFromGroup(dockable);
         }
     
-        EventQueue.invokeLater(() -> updateState(dockingEvent));
+        scheduleUpdate(dockable);
     }
 
     @Override
     public void undockingStarted(DockingEvent evt) {
         if(isEnabled()) {
+            PerspectiveManager.invalidateRealizedLayouts(evt.getDockable());
             updateState(evt);
         }
     }
@@ -102,14 +119,103 @@ public class DockingStateListener extends DockingListener.Stub {
         }
 
         updateCenterPoint(dockable);
+
+        // the docking path and relative info only depend on the chain of
+        // ports containing the dockable, so skip them if none of those changed
+        DockingState info = getDockingState(dockable);
+        LayoutStamp stamp = layoutStamps.get(dockable);
+        if(stamp!=null && stamp.state==info && stamp.path==info.getPath() && stamp.isCurrent(dockable)) {
+            return;
+        }
+
         updateDockingPath(dockable);
         updateRelative(dockable);
+        layoutStamps.put(dockable, LayoutStamp.create(dockable, info));
     }
 
     private void updateState(DockingEvent evt) {
         updateState(evt.getDockable());
     }
 
+    /**
+     * Schedules the state of the specified {@code Dockable} to be updated on the
+     * event dispatch thread. Requests made before the update runs are coalesced,
+     * so that each {@code Dockable} is updated once per event dispatch cycle no
+     * matter how many docking operations affected it.
+     *
+     * @param dockable the {@code Dockable} whose state is to be updated
+     */
+    public void scheduleUpdate(Dockable dockable) {
+        if(dockable==null) {
+            return;
+        }
+
+        synchronized(dirtyDockables) {
+            dirtyDockables.add(dockable.getPersistentId());
+            if(updateScheduled) {
+                return;
+            }
+            updateScheduled = true;
+        }
+        EventQueue.invokeLater(this::updateDirtyStates);
+    }
+
+    private void updateDirtyStates() {
+        String[] ids;
+        synchronized(dirtyDockables) {
+            ids = dirtyDockables.toArray(new String[0]);
+            dirtyDockables.clear();
+            updateScheduled = false;
+        }
+
+        // listening is only turned off while a layout is being applied, and that
+        // layout rewrites the states of the dockables it places.  the batch is
+        // stale by then, so drop it rather than hold it for later.
+        if(!isEnabled()) {
+            return;
+        }
+
+        final List<String> invalid = new ArrayList<>();
+        for(String id: ids) {
+            Dockable dockable = DockingManager.getDockable(id);
+            if(dockable==null) {
+                continue;
+            }
+
+            Component comp = dockable.getComponent();
+            if(DockingUtility.isEmbedded(dockable) && comp.isDisplayable() && !comp.isValid()) {
+                // the layout hasn't been validated yet.  check once more after the
+                // pending RepaintManager pass.
+                invalid.add(id);
+                continue;
+            }
+            updateState(dockable);
+        }
+
+        if(!invalid.isEmpty()) {
+            EventQueue.invokeLater(() -> updateValidatedStates(invalid));
+        }
+    }
+
+    private void updateValidatedStates(List<String> ids) {
+        if(!isEnabled()) {
+            return;
+        }
+
+        for(String id: ids) {
+            Dockable dockable = DockingManager.getDockable(id);
+            if(dockable==null) {
+                continue;
+            }
+
+            // a component that still isn't valid, e.g. because an ancestor is
+            // hidden, is left alone.  the next docking event will refresh it.
+            if(!DockingUtility.isEmbedded(dockable) || dockable.getComponent().isValid()) {
+                updateState(dockable);
+            }
+        }
+    }
+
 	private float getSplitPaneRatio(Dockable dockable, DockingConstants.Region region) {
         // check to see if the dockable was in a split layout.  if so, get the deepest split
         // node we can find so we can grab the split proportion percentage.
@@ -217,4 +323,60 @@ public class DockingStateListener extends DockingListener.Stub {
         return PerspectiveManager.getInstance().getCurrentPerspective();
     }
 
+    /**
+     * The layout revisions of the ports containing a dockable at the time its
+     * docking path was last computed.
+     */
+    private static class LayoutStamp {
+        private final DockingState state;
+        private final DockingPath path;
+        private final DefaultDockingPort[] ports;
+        private final int[] revisions;
+
+        private LayoutStamp(DockingState state, DefaultDockingPort[] ports, int[] revisions) {
+            this.state = state;
+            this.path = state.getPath();
+            this.ports = ports;
+            this.revisions = revisions;
+        }
+
+        private static LayoutStamp create(Dockable dockable, DockingState state) {
+            List<DefaultDockingPort> chain = new ArrayList<>();
+            for(Container parent = dockable.getComponent().getParent(); parent!=null; parent = parent.getParent()) {
+                if(parent instanceof DockingPort) {
+                    if(!(parent instanceof DefaultDockingPort)) {
+                        // custom ports don't track their revisions
+                        return null;
+                    }
+                    chain.add((DefaultDockingPort)parent);
+                    if(((DockingPort)parent).isRoot()) {
+                        break;
+                    }
+                }
+            }
+
+            DefaultDockingPort[] ports = chain.toArray(new DefaultDockingPort[0]);
+            int[] revisions = new int[ports.length];
+            for(int i=0; i<ports.length; i++) {
+                revisions[i] = ports[i].getLayoutRevision();
+            }
+            return new LayoutStamp(state, ports, revisions);
+        }
+
+        private boolean isCurrent(Dockable dockable) {
+            int i = 0;
+            for(Container parent = dockable.getComponent().getParent(); parent!=null; parent = parent.getParent()) {
+                if(parent instanceof DockingPort) {
+                    if(i==ports.length || parent!=ports[i] || ports[i].getLayoutRevision()!=revisions[i]) {
+                        return false;
+                    }
+                    if(ports[i++].isRoot()) {
+                        break;
+                    }
+                }
+            }
+            return i==ports.length;
+        }
+    }
+
 }
@@ -27,6 +27,8 @@ import org.flexdock.docking.state.DockingState;
 import org.flexdock.docking.state.FloatManager;
 import org.flexdock.docking.state.FloatingGroup;
 import org.flexdock.docking.state.LayoutNode;
+import org.flexdock.docking.state.MinimizationManager;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
 import org.flexdock.event.EventManager;
 import org.flexdock.event.RegistrationEvent;
 import org.flexdock.perspective.event.LayoutEvent;
@@ -36,23 +38,46 @@ import org.flexdock.util.RootWindow;
 import org.flexdock.util.SwingUtility;
 
 import java.awt.*;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * @author Christopher Butler
  */
 public class Layout implements Cloneable, FloatManager, Serializable {
-
-    private final HashMap<String, DockingState> dockingInfo;  // contains DockingState objects
-    private final Hashtable<String, FloatingGroup> floatingGroups;
-    private LayoutNode restorationLayout;
+    // the serialized form predates the immutable restoration layout, and is
+    // kept so that perspectives stored by DefaultFilePersister still load
+    private static final long serialVersionUID = 2803148022348490951L;
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("dockingInfo", HashMap.class),
+            new ObjectStreamField("floatingGroups", Hashtable.class),
+            new ObjectStreamField("restorationLayout", LayoutNode.class),
+    };
+
+    private HashMap<String, DockingState> dockingInfo;  // contains DockingState objects
+    private Hashtable<String, FloatingGroup> floatingGroups;
+    // immutable, so clones may share it rather than copying the whole tree
+    private ImmutableLayoutNode restorationLayout;
 
     private transient ArrayList<LayoutListener> layoutListeners;
 
+    // waits for a window to become active so minimized dockables can be restored
+    private transient PropertyChangeListener deferredMinimization;
+
     public Layout() {
         this(new HashMap<>(), new ArrayList<>(), new Hashtable<>());
     }
@@ -153,6 +178,15 @@ public class Layout implements Cloneable, FloatManager, Serializable {
         return list.toArray(new Dockable[0]);
     }
 
+    /**
+     * Returns the ids of all dockables with a {@code DockingState} in this
+     * {@code Layout}, whether or not they are currently registered with the
+     * {@code DockingManager}.
+     */
+    public String[] getDockableIds() {
+        return dockingInfo.keySet().toArray(new String[0]);
+    }
+
     public DockingState getDockingState(String dockableId) {
         return getDockingState(dockableId, false);
     }
@@ -198,68 +232,125 @@ public class Layout implements Cloneable, FloatManager, Serializable {
             return;
         }
 
-        // clear out the existing components
-        PerspectiveManager.clear(dockingPort);
-
-        // restore the layout
+        // restore the layout, reusing whatever part of the existing
+        // component tree already matches it
         boolean listening = PerspectiveManager.isDockingStateListening();
         PerspectiveManager.setDockingStateListening(false);
         try {
-            dockingPort.importLayout(restorationLayout);
+            if (!LayoutReconciler.reconcile(dockingPort, restorationLayout)) {
+                // clear out the existing components
+                PerspectiveManager.clear(dockingPort);
+                dockingPort.importLayout(restorationLayout.toLayoutNode());
+            }
         } finally {
             PerspectiveManager.setDockingStateListening(listening);
         }
 
-        // not restore floating and minimized layouts
-        Dockable[] dockables = getDockables();
-
-        // if there is no active window into which to restore our minimized
-        // dockables, then we'll have to defer restoration until a window appears.
-        ArrayList<Dockable> deferredMinimizedDockables = new ArrayList<>();
-        boolean deferMinimized = SwingUtility.getActiveWindow() == null;
+        restoreUnembedded();
 
-        boolean restoreFloatOnLoad = PerspectiveManager.isRestoreFloatingOnLoad();
-        for (Dockable dockable : dockables) {
-            if (DockingUtility.isMinimized(dockable)) {
-                if (deferMinimized) {
-                    deferredMinimizedDockables.add(dockable);
-                } else {
-                    RestorationManager.getInstance().restore(dockable);
-                }
+        // send notification
+        LayoutEvent evt = new LayoutEvent(this, null, null, LayoutEvent.LAYOUT_APPLIED);
+        EventManager.dispatch(evt);
+    }
 
-            } else if (restoreFloatOnLoad && DockingUtility.isFloating(dockable)) {
-                RestorationManager.getInstance().restore(dockable);
-            }
+    /**
+     * Completes this layout after the component tree it describes has been
+     * re-attached to its {@code DockingPort} as a whole. Only the floating and
+     * minimized {@code Dockables} are restored.
+     *
+     * @see RealizedLayoutCache#attach(Perspective, DockingPort)
+     */
+    void applyRealized() {
+        if (!isInitialized()) {
+            return;
         }
 
-        // if necessary, defer minimized restoration until after a valid window
-        // has been resolved
-        restoreDeferredMinimizedDockables(deferredMinimizedDockables);
+        restoreUnembedded();
 
         // send notification
         LayoutEvent evt = new LayoutEvent(this, null, null, LayoutEvent.LAYOUT_APPLIED);
         EventManager.dispatch(evt);
     }
 
-	private void restoreDeferredMinimizedDockables(final ArrayList<Dockable> deferred) {
-        if (deferred == null || deferred.isEmpty()) {
-            return;
+    private void restoreUnembedded() {
+        // restore floating and minimized layouts
+        List<Dockable> minimized = new ArrayList<>();
+        List<Dockable> floating = new ArrayList<>();
+        boolean restoreFloatOnLoad = PerspectiveManager.isRestoreFloatingOnLoad();
+        for (Dockable dockable : getDockables()) {
+            if (DockingManager.isDocked(dockable)) {
+                continue;
+            }
+
+            if (DockingUtility.isMinimized(dockable)) {
+                minimized.add(dockable);
+            } else if (restoreFloatOnLoad && DockingUtility.isFloating(dockable)) {
+                floating.add(dockable);
+            }
         }
 
-        EventQueue.invokeLater(() -> restoreMinimizedDockables(deferred));
+        restoreFloating(floating);
+        restoreMinimized(minimized);
     }
 
+    private static void restoreFloating(List<Dockable> dockables) {
+        if (dockables.isEmpty()) {
+            return;
+        }
+
+        Component owner = RestorationManager.getRestoreContainer(null);
+        if (owner == null) {
+            // without a frame owner, let the restoration handlers place them
+            RestorationManager.getInstance().restoreAll(dockables);
+            return;
+        }
+        DockingManager.getFloatManager().floatDockables(dockables, owner);
+    }
 
-	private void restoreMinimizedDockables(ArrayList<Dockable> dockables) {
-        if (SwingUtility.getActiveWindow() == null) {
-            restoreDeferredMinimizedDockables(dockables);
+    private void restoreMinimized(List<Dockable> dockables) {
+        KeyboardFocusManager focusManager = KeyboardFocusManager.getCurrentKeyboardFocusManager();
+        if (deferredMinimization != null) {
+            // superseded by this restoration
+            focusManager.removePropertyChangeListener("activeWindow", deferredMinimization);
+            deferredMinimization = null;
+        }
+        if (dockables.isEmpty()) {
             return;
         }
 
-        for (Object dockable1 : dockables) {
-            Dockable dockable = (Dockable) dockable1;
-            RestorationManager.getInstance().restore(dockable);
+        Window window = SwingUtility.getActiveWindow();
+        if (window != null) {
+            MinimizationManager minimizeManager = DockingManager.getMinimizeManager();
+            // previewed first, as MinimizedHandler does when restoring one at a time
+            for (Dockable dockable : dockables) {
+                minimizeManager.preview(dockable, true);
+            }
+            minimizeManager.setMinimized(dockables, true, window);
+            return;
         }
+
+        // there is no active window into which to restore our minimized
+        // dockables, so defer restoration until a window is activated.
+        deferredMinimization = new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (evt.getNewValue() == null) {
+                    return;
+                }
+
+                focusManager.removePropertyChangeListener("activeWindow", this);
+                deferredMinimization = null;
+                // skip any that have been docked or restored in the meantime
+                List<Dockable> pending = new ArrayList<>();
+                for (Dockable dockable : dockables) {
+                    if (DockingUtility.isMinimized(dockable) && !DockingManager.isDocked(dockable)) {
+                        pending.add(dockable);
+                    }
+                }
+                restoreMinimized(pending);
+            }
+        };
+        focusManager.addPropertyChangeListener("activeWindow", deferredMinimization);
     }
 
     private boolean isMaintained(Dockable dockable) {
@@ -311,7 +402,8 @@ public class Layout implements Cloneable, FloatManager, Serializable {
             // it's okay that we share listener references, since we want the
             // cloned Layout to have the same listeners.
             Layout clone = new Layout(infoMap, listeners, floatTable);
-			clone.restorationLayout = restorationLayout == null ? null : (LayoutNode) restorationLayout.clone();
+            // the restoration layout is immutable and may be shared as-is
+            clone.restorationLayout = restorationLayout;
             return clone;
         }
 
@@ -357,6 +449,50 @@ public class Layout implements Cloneable, FloatManager, Serializable {
 
     @Override
     public DockingFrame floatDockable(Dockable dockable, Component frameOwner) {
+        return floatDockable(dockable, frameOwner, getFloatingBounds(dockable, frameOwner));
+    }
+
+    @Override
+    public Set<DockingFrame> floatDockables(Collection<? extends Dockable> dockables, Component frameOwner) {
+        // gather the dockables of each floating group, so that every group's
+        // frame is resolved, sized and shown only once
+        Map<String, List<Dockable>> groups = new LinkedHashMap<>();
+        Set<DockingFrame> frames = new LinkedHashSet<>();
+        for (Dockable dockable : dockables) {
+            if (dockable == null) {
+                continue;
+            }
+
+            String groupId = getFloatingGroup(dockable);
+            if (groupId == null) {
+                DockingFrame frame = floatDockable(dockable, frameOwner);
+                if (frame != null) {
+                    frames.add(frame);
+                }
+            } else {
+                groups.computeIfAbsent(groupId, key -> new ArrayList<>()).add(dockable);
+            }
+        }
+
+        for (List<Dockable> members : groups.values()) {
+            Dockable first = members.get(0);
+            Rectangle bounds = getFloatingBounds(first, frameOwner);
+            DockingFrame frame = getDockingFrame(first, frameOwner);
+            frame.setBounds(bounds);
+            for (Dockable dockable : members) {
+                DockingManager.undock(dockable);
+                frame.addDockable(dockable);
+            }
+
+            if (!frame.isVisible()) {
+                frame.setVisible(true);
+            }
+            frames.add(frame);
+        }
+        return frames;
+    }
+
+    private Rectangle getFloatingBounds(Dockable dockable, Component frameOwner) {
         FloatingGroup group = getGroup(dockable);
         Rectangle bounds = group == null ? null : group.getBounds();
         if (bounds == null) {
@@ -374,8 +510,7 @@ public class Layout implements Cloneable, FloatManager, Serializable {
             int y = (ownerBounds.y + ownerBounds.height / 2) - bounds.height / 2;
             bounds.setLocation(x, y);
         }
-
-        return floatDockable(dockable, frameOwner, bounds);
+        return bounds;
     }
 
     @Override
@@ -404,6 +539,10 @@ public class Layout implements Cloneable, FloatManager, Serializable {
         floatingGroups.put(floatingGroup.getName(), floatingGroup);
     }
 
+    public FloatingGroup removeFloatingGroup(String groupId) {
+        return groupId == null ? null : floatingGroups.remove(groupId);
+    }
+
     @Override
     public void addToGroup(Dockable dockable, String groupId) {
         // floating groups are mutually exclusive
@@ -448,12 +587,63 @@ public class Layout implements Cloneable, FloatManager, Serializable {
         return restorationLayout != null;
     }
 
+    /**
+     * Returns a new mutable copy of the restoration layout, suitable for
+     * passing to {@code DockingPort.importLayout()}. Each call returns a
+     * distinct tree.
+     * <p>
+     * Earlier versions returned the layout's own tree. Changes made to the
+     * returned tree are no longer reflected in this {@code Layout}; pass it
+     * back to {@link #setRestorationLayout(LayoutNode)} to apply them.
+     *
+     * @return a copy of the restoration layout, or {@code null} if this
+     * {@code Layout} is not initialized.
+     * @see #getRestorationTree()
+     */
     public LayoutNode getRestorationLayout() {
-        return restorationLayout;
+        return restorationLayout == null ? null : restorationLayout.toLayoutNode();
     }
 
     public void setRestorationLayout(LayoutNode restorationLayout) {
-        this.restorationLayout = restorationLayout;
+        this.restorationLayout = ImmutableLayoutNode.valueOf(restorationLayout);
+    }
+
+    /**
+     * Returns the restoration layout in its immutable form. The returned tree
+     * may be shared with other {@code Layouts} and never changes.
+     *
+     * @return the restoration layout, or {@code null} if this {@code Layout}
+     * is not initialized.
+     */
+    public ImmutableLayoutNode getRestorationTree() {
+        return restorationLayout;
+    }
+
+    public void setRestorationTree(ImmutableLayoutNode restorationTree) {
+        this.restorationLayout = restorationTree;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        // write a copy so the map can't change while it is being serialized
+        HashMap<String, DockingState> info;
+        synchronized (dockingInfo) {
+            info = new HashMap<>(dockingInfo);
+        }
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("dockingInfo", info);
+        fields.put("floatingGroups", floatingGroups);
+        fields.put("restorationLayout", getRestorationLayout());
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        HashMap<String, DockingState> info = (HashMap<String, DockingState>) fields.get("dockingInfo", null);
+        Hashtable<String, FloatingGroup> groups = (Hashtable<String, FloatingGroup>) fields.get("floatingGroups", null);
+        dockingInfo = info == null ? new HashMap<>() : info;
+        floatingGroups = groups == null ? new Hashtable<>() : groups;
+        restorationLayout = ImmutableLayoutNode.valueOf((LayoutNode) fields.get("restorationLayout", null));
     }
 
     void update(LayoutSequence sequence) {
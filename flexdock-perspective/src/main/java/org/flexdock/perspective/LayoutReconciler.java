@@ -0,0 +1,186 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective;
+
+import org.flexdock.docking.DockingPort;
+import org.flexdock.docking.defaults.DockingSplitPane;
+import org.flexdock.docking.defaults.SplitLayoutSolver;
+import org.flexdock.docking.state.LayoutNode;
+import org.flexdock.docking.state.tree.DockableNode;
+import org.flexdock.docking.state.tree.DockingPortNode;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
+import org.flexdock.docking.state.tree.SplitNode;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Transforms the layout currently embedded within a {@code DockingPort} into a
+ * target layout while reusing as much of the existing container hierarchy as
+ * possible.
+ * <p>
+ * The current layout, as built by {@code LayoutBuilder}, is compared with the
+ * target layout from the root down. Wherever both contain a split with the
+ * same orientation and creation region, the existing {@code JSplitPane} and
+ * its sub-{@code DockingPorts} are kept and only the divider is moved.
+ * Wherever both contain the same {@code Dockables} in the same tab order, the
+ * existing {@code JTabbedPane} is kept untouched. Every other
+ * sub-{@code DockingPort} is cleared and rebuilt from the corresponding part
+ * of the target layout through {@code importLayout()}.
+ * <p>
+ * Clearing and rebuilding the root {@code DockingPort} is therefore the worst
+ * case rather than the only case, and switching between perspectives that
+ * differ by a single view rebuilds only the part of the layout containing that
+ * view.
+ *
+ * @see Layout#apply(DockingPort)
+ * @see LayoutBuilder#createLayout(DockingPort)
+ */
+final class LayoutReconciler {
+
+	private final List<DockingPortNode> rebuilt = new ArrayList<>();
+
+	private final List<SplitNode> reused = new ArrayList<>();
+
+	private LayoutReconciler() {
+	}
+
+	/**
+	 * Reconciles the layout embedded within the specified {@code DockingPort}
+	 * with the specified target layout.
+	 *
+	 * @param port   the {@code DockingPort} whose layout is to be updated
+	 * @param target the layout to be displayed within {@code port}
+	 * @return {@code false} if the target layout cannot be reconciled and the
+	 * caller must fall back to clearing and importing the layout; {@code true}
+	 * otherwise.
+	 */
+	static boolean reconcile(DockingPort port, ImmutableLayoutNode target) {
+		if (port == null || target == null || target.getKind() != ImmutableLayoutNode.Kind.DOCKING_PORT) {
+			return false;
+		}
+
+		LayoutNode current = LayoutBuilder.getInstance().createLayout(port);
+		if (target.equals(ImmutableLayoutNode.valueOf(current))) {
+			return true;
+		}
+
+		new LayoutReconciler().apply(port, (DockingPortNode) current, (DockingPortNode) target.toLayoutNode());
+		return true;
+	}
+
+	private void apply(DockingPort root, DockingPortNode current, DockingPortNode target) {
+		match(current, target);
+
+		// tear down every replaced subtree before rebuilding any of them, since
+		// dockables may be moving from one to another.
+		for (DockingPortNode node : rebuilt) {
+			node.getDockingPort().clear();
+		}
+		for (DockingPortNode node : rebuilt) {
+			node.getDockingPort().importLayout(node);
+		}
+
+		updateDividers((Component) root, target);
+		((Component) root).revalidate();
+	}
+
+	private void match(DockingPortNode current, DockingPortNode target) {
+		DockingPort port = current.getDockingPort();
+		target.setUserObject(port);
+
+		if (current.isSplit() && target.isSplit()) {
+			SplitNode currentSplit = (SplitNode) current.getChildAt(0);
+			SplitNode targetSplit = (SplitNode) target.getChildAt(0);
+			Component docked = port.getDockedComponent();
+			if (docked instanceof JSplitPane && isReusable(currentSplit, targetSplit)) {
+				targetSplit.setUserObject(docked);
+				reused.add(targetSplit);
+				match((DockingPortNode) currentSplit.getChildAt(0), (DockingPortNode) targetSplit.getChildAt(0));
+				match((DockingPortNode) currentSplit.getChildAt(1), (DockingPortNode) targetSplit.getChildAt(1));
+				return;
+			}
+		}
+		else if (!current.isSplit() && !target.isSplit() && isSameDockables(current, target)) {
+			return;
+		}
+
+		rebuilt.add(target);
+	}
+
+	private static boolean isReusable(SplitNode current, SplitNode target) {
+		return current.getOrientation() == target.getOrientation()
+				&& current.getDockingRegion() == target.getDockingRegion()
+				&& hasTwoPorts(current) && hasTwoPorts(target);
+	}
+
+	private static boolean hasTwoPorts(SplitNode node) {
+		return node.getChildCount() == 2
+				&& node.getChildAt(0) instanceof DockingPortNode
+				&& node.getChildAt(1) instanceof DockingPortNode;
+	}
+
+	private static boolean isSameDockables(DockingPortNode current, DockingPortNode target) {
+		int len = current.getChildCount();
+		if (len != target.getChildCount()) {
+			return false;
+		}
+
+		for (int i = 0; i < len; i++) {
+			if (!(current.getChildAt(i) instanceof DockableNode) || !(target.getChildAt(i) instanceof DockableNode)) {
+				return false;
+			}
+			String currentId = ((DockableNode) current.getChildAt(i)).getDockableId();
+			String targetId = ((DockableNode) target.getChildAt(i)).getDockableId();
+			if (currentId == null || !currentId.equals(targetId)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void updateDividers(Component root, DockingPortNode target) {
+		if (reused.isEmpty()) {
+			return;
+		}
+
+		// rebuilt subtrees position their own dividers once imported, so only
+		// the reused split panes are moved here.
+		Map<SplitNode, Integer> locations = new SplitLayoutSolver().solve(target, root.getSize());
+		for (SplitNode node : reused) {
+			Integer location = locations.get(node);
+			JSplitPane split = node.getSplitPane();
+			float percent = node.getPercentage();
+			if (location == null || split.getDividerLocation() == location) {
+				continue;
+			}
+
+			if (split instanceof DockingSplitPane && percent >= 0 && percent <= 1) {
+				((DockingSplitPane) split).setDividerLocation(location, percent);
+			}
+			else {
+				split.setDividerLocation(location);
+			}
+		}
+	}
+}
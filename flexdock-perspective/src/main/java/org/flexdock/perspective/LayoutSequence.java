@@ -23,7 +23,9 @@ import org.flexdock.docking.Dockable;
 import org.flexdock.docking.DockingConstants;
 import org.flexdock.docking.DockingManager;
 import org.flexdock.docking.DockingPort;
+import org.flexdock.docking.defaults.DefaultRegionChecker;
 import org.flexdock.docking.state.DockingState;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
 import org.flexdock.util.DockingUtility;
 
 import java.io.Serializable;
@@ -35,6 +37,8 @@ import java.util.Objects;
  * @author Christopher Butler
  */
 public class LayoutSequence implements Cloneable, Serializable {
+    // pinned to the value computed for earlier versions, whose serialized form is unchanged
+    private static final long serialVersionUID = -3677480911387172079L;
 
     private List<DockingState> sequence;  // contains DockingState objects
 
@@ -79,7 +83,7 @@ public class LayoutSequence implements Cloneable, Serializable {
         info.setRelativeParentId(relativeParentId);
         info.setRegion(region);
         info.setSplitRatio(ratio);
-        sequence.add(info);
+        add(info);
     }
 
     //Claudio Romano request
@@ -88,11 +92,95 @@ public class LayoutSequence implements Cloneable, Serializable {
         sequence.add(dockingState);
     }
 
+    /**
+     * Returns the layout tree that applying this sequence produces. The tree is
+     * compiled from the current {@code DockingStates} of this sequence on
+     * every call and is not cached, since split ratios that the sequence
+     * leaves unspecified are resolved from the sibling size preferences of
+     * the {@code Dockables} registered at the time.
+     *
+     * @return the compiled layout tree, or {@code null} if this sequence is
+     * empty or its {@code DockingStates} can only be applied one at a time
+     * @see LayoutSequenceCompiler
+     */
+    public ImmutableLayoutNode getCompiledLayout() {
+        return LayoutSequenceCompiler.compile(sequence);
+    }
+
+    /**
+     * Applies this sequence to the specified {@code DockingPort}, replacing
+     * its current content.
+     * <p>
+     * If every {@code Dockable} of the sequence is registered, the compiled
+     * layout tree is imported in a single pass. In that case no
+     * {@code DockingEvents} are fired for the individual {@code Dockables};
+     * their {@code DockingStates} are updated directly instead, and the
+     * sibling size preferences that docking each {@code Dockable} relative
+     * to its parent would have set are stored once the tree has been
+     * imported. Otherwise the
+     * sequence is replayed one docking operation at a time, which fires the
+     * usual {@code DockingEvents}, including {@code dockingComplete}, for
+     * each {@code Dockable}.
+     *
+     * @param port the {@code DockingPort} to apply this sequence to
+     * @see #getCompiledLayout()
+     */
     public void apply(DockingPort port) {
         if (port == null) {
             return;
         }
 
+        // build the whole hierarchy at once rather than docking each
+        // dockable relative to its parent. compile only once every dockable
+        // is registered, so that their sibling size preferences are known.
+        ImmutableLayoutNode layout = isRegistered() ? getCompiledLayout() : null;
+        if (layout == null) {
+            replay(port);
+            return;
+        }
+
+        boolean listen = PerspectiveManager.isDockingStateListening();
+        PerspectiveManager.setDockingStateListening(false);
+        try {
+            PerspectiveManager.clear(port);
+            port.importLayout(layout.toLayoutNode());
+        } finally {
+            PerspectiveManager.setDockingStateListening(listen);
+        }
+
+        List<Dockable> dockables = new ArrayList<>();
+        for (int i = 0; i < sequence.size(); i++) {
+            DockingState info = sequence.get(i);
+            Dockable dockable = info.getDockable();
+            if (dockable != null) {
+                dockables.add(dockable);
+            }
+            if (i > 0) {
+                setSiblingPreference(info.getRelativeParent(), info.getRegion(), info.getSplitRatio());
+            }
+        }
+        PerspectiveManager.updateDockingStates(dockables.toArray(new Dockable[0]));
+    }
+
+    private static void setSiblingPreference(Dockable parent, DockingConstants.Region region, float ratio) {
+        // the same preference DockingUtility.dockRelative() sets before docking
+        if (parent == null || region == null || ratio == DockingConstants.UNSPECIFIED_SIBLING_PREF
+                || region == DockingConstants.Region.CENTER || !DockingManager.isValidDockingRegion(region)) {
+            return;
+        }
+        parent.getDockingProperties().setSiblingSize(region, DefaultRegionChecker.validateSiblingSize(ratio));
+    }
+
+    private boolean isRegistered() {
+        for (DockingState info : sequence) {
+            if (DockingManager.getDockable(info.getDockableId()) == null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void replay(DockingPort port) {
         boolean listen = PerspectiveManager.isDockingStateListening();
         PerspectiveManager.setDockingStateListening(false);
 
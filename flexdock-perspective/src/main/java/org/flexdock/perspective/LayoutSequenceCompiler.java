@@ -0,0 +1,187 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective;
+
+import org.flexdock.docking.Dockable;
+import org.flexdock.docking.DockingConstants;
+import org.flexdock.docking.DockingManager;
+import org.flexdock.docking.defaults.DefaultRegionChecker;
+import org.flexdock.docking.state.DockingState;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
+import org.flexdock.util.DockingUtility;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles a {@code LayoutSequence} into the layout tree its docking
+ * operations would produce, without touching any components.
+ * <p>
+ * Each {@code DockingState} of the sequence is replayed against a model of
+ * nested {@code DockingPorts}, following the rules of the default docking
+ * strategy: docking into the {@code CENTER} region adds a tab to the port
+ * holding the relative parent, while docking into an outer region moves the
+ * current content of that port into one sub-port and the new
+ * {@code Dockable} into another, split along the requested region. The
+ * result may be passed to {@code DockingPort.importLayout()} to build the
+ * whole component hierarchy in a single pass.
+ * <p>
+ * Split ratios that are not given by the sequence are resolved from the
+ * sibling size preference of the {@code Dockable} being split, just as the
+ * docking strategy would, at the time the sequence is compiled. Preferences
+ * set by earlier states of the sequence are taken into account, although
+ * they are only stored once the compiled layout is applied.
+ *
+ * @see LayoutSequence#getCompiledLayout()
+ */
+final class LayoutSequenceCompiler {
+
+	private LayoutSequenceCompiler() {
+		// does nothing
+	}
+
+	/**
+	 * Compiles the specified docking states into a layout tree.
+	 *
+	 * @param states the docking states of a {@code LayoutSequence}, in order
+	 * @return the root of the compiled tree, or {@code null} if the sequence
+	 * is empty or cannot be expressed as a single layout tree, in which
+	 * case it has to be replayed one docking operation at a time.
+	 */
+	static ImmutableLayoutNode compile(List<DockingState> states) {
+		if (states.isEmpty()) {
+			return null;
+		}
+
+		Port root = new Port();
+		Map<String, Port> locations = new HashMap<>();
+		// sibling size preferences set while docking relative to a dockable
+		Map<String, Map<DockingConstants.Region, Float>> preferences = new HashMap<>();
+		for (int i = 0; i < states.size(); i++) {
+			DockingState state = states.get(i);
+			String dockableId = state.getDockableId();
+			if (dockableId == null || locations.containsKey(dockableId)) {
+				// docking the same dockable twice moves it, which depends on
+				// the live layout.
+				return null;
+			}
+
+			if (i == 0) {
+				root.dockables.add(dockableId);
+				locations.put(dockableId, root);
+				continue;
+			}
+
+			DockingConstants.Region region = state.getRegion();
+			if (region == null || !DockingManager.isValidDockingRegion(region)) {
+				// docking into an invalid region does nothing.
+				continue;
+			}
+
+			String parentId = state.getRelativeParentId();
+			Port port = parentId == null ? null : locations.get(parentId);
+			if (port == null) {
+				// docking relative to a dockable that isn't part of the
+				// layout depends on where that dockable lives right now.
+				return null;
+			}
+
+			float ratio = state.getSplitRatio();
+			if (ratio != DockingConstants.UNSPECIFIED_SIBLING_PREF && region != DockingConstants.Region.CENTER) {
+				preferences.computeIfAbsent(parentId, id -> new HashMap<>()).put(region,
+						DefaultRegionChecker.validateSiblingSize(ratio));
+			}
+
+			if (region == DockingConstants.Region.CENTER) {
+				port.dockables.add(dockableId);
+				locations.put(dockableId, port);
+				continue;
+			}
+
+			Port elder = new Port();
+			elder.dockables.addAll(port.dockables);
+			elder.dockables.forEach(id -> locations.put(id, elder));
+			Port newer = new Port();
+			newer.dockables.add(dockableId);
+			locations.put(dockableId, newer);
+
+			port.dockables.clear();
+			port.region = region;
+			port.share = getSiblingShare(elder, region, ratio, preferences);
+			port.elder = elder;
+			port.newer = newer;
+		}
+		return root.toLayoutTree();
+	}
+
+	private static float getSiblingShare(Port elder, DockingConstants.Region region, float ratio,
+			Map<String, Map<DockingConstants.Region, Float>> preferences) {
+		if (ratio != DockingConstants.UNSPECIFIED_SIBLING_PREF) {
+			return DefaultRegionChecker.validateSiblingSize(ratio);
+		}
+
+		// the docking strategy only consults the preferences of a dockable
+		// docked on its own; tabbed content uses the default.
+		String dockableId = elder.dockables.size() == 1 ? elder.dockables.get(0) : null;
+		Map<DockingConstants.Region, Float> compiled = dockableId == null ? null : preferences.get(dockableId);
+		Float size = compiled == null ? null : compiled.get(region);
+		if (size == null && dockableId != null) {
+			Dockable dockable = DockingManager.getDockable(dockableId);
+			size = dockable == null ? null : dockable.getDockingProperties().getSiblingSize(region);
+		}
+		return DefaultRegionChecker.validateSiblingSize(size == null ? DockingManager.getDefaultSiblingSize() : size);
+	}
+
+	/**
+	 * A {@code DockingPort} holding either a list of tabbed {@code Dockables}
+	 * or a split between the content it held before and a newly docked
+	 * {@code Dockable}.
+	 */
+	private static final class Port {
+		private final List<String> dockables = new ArrayList<>();
+		private DockingConstants.Region region;
+		private float share;
+		private Port elder;
+		private Port newer;
+
+		private ImmutableLayoutNode toLayoutTree() {
+			if (region == null) {
+				ImmutableLayoutNode[] children = new ImmutableLayoutNode[dockables.size()];
+				for (int i = 0; i < children.length; i++) {
+					children[i] = ImmutableLayoutNode.dockable(dockables.get(i));
+				}
+				return ImmutableLayoutNode.dockingPort(children);
+			}
+
+			int orientation = region == DockingConstants.Region.NORTH || region == DockingConstants.Region.SOUTH
+					? JSplitPane.VERTICAL_SPLIT : JSplitPane.HORIZONTAL_SPLIT;
+			// the split percentage is the share of the left or top component
+			boolean newerTopLeft = DockingUtility.isRegionTopLeft(region);
+			Port left = newerTopLeft ? newer : elder;
+			Port right = newerTopLeft ? elder : newer;
+			float percentage = newerTopLeft ? share : 1.0f - share;
+			return ImmutableLayoutNode.dockingPort(ImmutableLayoutNode.split(orientation, 0, percentage, null, region,
+					left.toLayoutTree(), right.toLayoutTree()));
+		}
+	}
+}
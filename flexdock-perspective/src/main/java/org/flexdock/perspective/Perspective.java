@@ -24,17 +24,27 @@ import org.flexdock.docking.DockingManager;
 import org.flexdock.docking.DockingPort;
 import org.flexdock.docking.state.DockingState;
 import org.flexdock.docking.state.LayoutNode;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
 import org.flexdock.event.EventManager;
 import org.flexdock.perspective.event.LayoutListener;
 import org.flexdock.perspective.event.PerspectiveEvent;
+import org.flexdock.util.DockingUtility;
 
+import javax.swing.*;
+import java.awt.*;
 import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.Objects;
+import java.util.Set;
 
 /**
  * @author Mateusz Szczap
  */
 public class Perspective implements Cloneable, Serializable {
+	// pinned to the value computed for earlier versions, whose serialized form is unchanged
+	private static final long serialVersionUID = -4708409349791231532L;
+
 	private String persistentId;
 	private String perspectiveName;
 	private Layout layout;
@@ -153,6 +163,90 @@ public class Perspective implements Cloneable, Serializable {
 		}
 	}
 	
+	/**
+	 * Closes the {@code Dockables} of this perspective in preparation for
+	 * loading the specified perspective into the specified
+	 * {@code DockingPort}. {@code Dockables} embedded within {@code port} that
+	 * the next perspective also embeds are left in place, allowing the next
+	 * perspective to reuse the layout surrounding them instead of rebuilding
+	 * it. If the next perspective has no restoration layout, all
+	 * {@code Dockables} are closed as with {@code unload()}.
+	 *
+	 * @param next the perspective about to be loaded
+	 * @param port the {@code DockingPort} into which {@code next} will be loaded
+	 * @see #unload()
+	 */
+	public void unload(Perspective next, DockingPort port) {
+		ImmutableLayoutNode target = next == null ? null : next.getLayout().getRestorationTree();
+		if (target == null || !(port instanceof Component)) {
+			unload();
+			return;
+		}
+
+		Set<String> retained = target.getDockableIds();
+		Dockable[] dockables = this.layout.getDockables();
+		for (Dockable dockable : dockables) {
+			if (!retained.contains(dockable.getPersistentId()) || !isEmbedded(dockable, port)) {
+				DockingManager.close(dockable);
+			}
+		}
+	}
+
+	/**
+	 * Closes the {@code Dockables} of this perspective that are not contained
+	 * within the specified component tree, which has been detached from the
+	 * root {@code DockingPort} and is retained for reuse.
+	 *
+	 * @param detached the detached component tree
+	 * @see RealizedLayoutCache#detach(Perspective, DockingPort)
+	 */
+	void unload(Component detached) {
+		Dockable[] dockables = this.layout.getDockables();
+		for (Dockable dockable : dockables) {
+			if (!SwingUtilities.isDescendingFrom(dockable.getComponent(), detached)) {
+				DockingManager.close(dockable);
+			}
+		}
+	}
+
+	/**
+	 * Completes loading this perspective after its retained component tree
+	 * has been re-attached to the root {@code DockingPort}.
+	 *
+	 * @see RealizedLayoutCache#attach(Perspective, DockingPort)
+	 */
+	void loadRealized() {
+		this.layout.applyRealized();
+		EventManager.getInstance().dispatchEvent(new PerspectiveEvent(this, null, PerspectiveEvent.RESET));
+	}
+
+	/**
+	 * Returns the ids of every {@code Dockable} this perspective may display,
+	 * whether embedded, floating or minimized, including those that are only
+	 * named by its initial sequence.
+	 *
+	 * @return the ids of the {@code Dockables} of this perspective
+	 */
+	Set<String> getDockableIds() {
+		Set<String> ids = new LinkedHashSet<>(Arrays.asList(this.layout.getDockableIds()));
+		ImmutableLayoutNode tree = this.layout.getRestorationTree();
+		if (tree != null) {
+			ids.addAll(tree.getDockableIds());
+		}
+		LayoutSequence sequence = this.initalSequence;
+		if (sequence != null) {
+			for (DockingState state : sequence.getDockingStates()) {
+				ids.add(state.getDockableId());
+			}
+		}
+		return ids;
+	}
+
+	private static boolean isEmbedded(Dockable dockable, DockingPort port) {
+		return DockingUtility.isEmbedded(dockable)
+				&& SwingUtilities.isDescendingFrom(dockable.getComponent(), (Component) port);
+	}
+	
 	public void cacheLayoutState(DockingPort port) {
 		if (port != null) {
 			Layout layout = this.layout;
@@ -37,9 +37,17 @@ import org.flexdock.util.Utilities;
 import javax.swing.*;
 import java.awt.*;
 import java.io.IOException;
+import java.io.InterruptedIOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * @author Mateusz Szczap
@@ -52,12 +60,32 @@ public class PerspectiveManager implements LayoutManager {
 	private static final DockingStateListener UPDATE_LISTENER = new DockingStateListener();
 	
 	private final HashMap<String, Perspective> perspectives = new HashMap<>();
+	// perspectives loaded from storage that haven't been read yet, by id
+	private final LinkedHashMap<String, Callable<Perspective>> deferredPerspectives = new LinkedHashMap<>();
 	private PerspectiveFactory perspectiveFactory;
 	private String defaultPerspective;
 	private String currentPerspective;
 	private PersistenceHandler persistHandler;
 	private boolean restoreFloatingOnLoad;
 	private String defaultPersistenceKey;
+	private final RealizedLayoutCache realizedLayouts = new RealizedLayoutCache();
+	private final PerspectiveWriter writer = new PerspectiveWriter();
+	private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "FlexDock Perspective Loader");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// preloads get their own thread, so that a load() waiting for one never
+	// queues behind work that needs this manager
+	private final ExecutorService preloader = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "FlexDock Perspective Preloader");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// the asynchronous perspective switch in progress, if any
+	private CompletableFuture<Perspective> pendingLoad;
+	// models being read ahead of load(), by persistence key
+	private final HashMap<String, CompletableFuture<PerspectiveModel>> preloads = new HashMap<>();
 	
 	static {
 		initialize();
@@ -77,6 +105,29 @@ public class PerspectiveManager implements LayoutManager {
 		EventManager.addHandler(new LayoutEventHandler());
 		
 		EventManager.addListener(UPDATE_LISTENER);
+		// perspective switches and hidden dockables don't always involve a docking
+		// operation, so let the DockingManager know they need autosaving
+		EventManager.addListener(new LayoutListener() {
+			@Override
+			public void layoutApplied(LayoutEvent evt) {
+				DockingManager.scheduleAutoPersist();
+			}
+			
+			@Override
+			public void layoutEmptied(LayoutEvent evt) {
+				DockingManager.scheduleAutoPersist();
+			}
+			
+			@Override
+			public void dockableHidden(LayoutEvent evt) {
+				DockingManager.scheduleAutoPersist();
+			}
+			
+			@Override
+			public void dockableDisplayed(LayoutEvent evt) {
+				DockingManager.scheduleAutoPersist();
+			}
+		});
 		
 		String pKey = System.getProperty(DockingConstants.DEFAULT_PERSISTENCE_KEY);
 		setPersistenceHandler(FilePersistenceHandler.createDefault(DEFAULT_PERSISTENCE_KEY_VALUE));
@@ -92,7 +143,11 @@ public class PerspectiveManager implements LayoutManager {
 	}
 	
 	public static void setPersistenceHandler(PersistenceHandler handler) {
-		getInstance().persistHandler = handler;
+		PerspectiveManager mgr = getInstance();
+		synchronized (mgr) {
+			mgr.persistHandler = handler;
+			mgr.preloads.clear();
+		}
 	}
 	
 	public static PersistenceHandler getPersistenceHandler() {
@@ -115,6 +170,7 @@ public class PerspectiveManager implements LayoutManager {
 		}
 		
 		this.perspectives.put(perspective.getPersistentId(), perspective);
+		this.deferredPerspectives.remove(perspective.getPersistentId());
 		if (isDefault) {
 			setDefaultPerspective(perspective.getPersistentId());
 		}
@@ -133,6 +189,7 @@ public class PerspectiveManager implements LayoutManager {
 		}
 		
 		this.perspectives.remove(perspectiveId);
+		this.realizedLayouts.invalidate(perspectiveId);
 		
 		//set defaultPerspective
 		if (this.defaultPerspective.equals(perspectiveId)) {
@@ -148,6 +205,9 @@ public class PerspectiveManager implements LayoutManager {
 		}
 		
 		Perspective perspective = this.perspectives.get(perspectiveId);
+		if (perspective == null) {
+			perspective = loadDeferredPerspective(perspectiveId);
+		}
 		if (perspective == null) {
 			perspective = createPerspective(perspectiveId);
 			if (perspective != null) {
@@ -157,6 +217,29 @@ public class PerspectiveManager implements LayoutManager {
 		return perspective;
 	}
 	
+	private Perspective loadDeferredPerspective(String perspectiveId) {
+		Callable<Perspective> loader = this.deferredPerspectives.remove(perspectiveId);
+		if (loader == null) {
+			return null;
+		}
+		
+		try {
+			Perspective perspective = PerspectiveModel.loadDeferredPerspective(perspectiveId, loader);
+			add(perspective);
+			return perspective;
+		} catch (IllegalStateException ex) {
+			// fall back on the factory, as if the perspective had never been stored
+			ex.printStackTrace();
+			return null;
+		}
+	}
+	
+	private void loadDeferredPerspectives() {
+		for (String perspectiveId : new ArrayList<>(this.deferredPerspectives.keySet())) {
+			loadDeferredPerspective(perspectiveId);
+		}
+	}
+	
 	private Perspective createPerspective(String perspectiveId) {
 		if (EMPTY_PERSPECTIVE.equals(perspectiveId)) {
 			return new Perspective(EMPTY_PERSPECTIVE, EMPTY_PERSPECTIVE) {
@@ -304,6 +387,9 @@ public class PerspectiveManager implements LayoutManager {
 		setCurrentPerspectiveName(null);
 		
 		DockingPort port = DockingManager.getRootDockingPort(w);
+		if (reset) {
+			loadDeferredPerspectives();
+		}
 		Perspective[] perspectives = getPerspectives();
 		for (Perspective perspective : perspectives) {
 			String id = perspective.getPersistentId();
@@ -412,6 +498,107 @@ public class PerspectiveManager implements LayoutManager {
 		loadPerspectiveImpl(perspectiveId, rootPort, reset);
 	}
 	
+	/**
+	 * Switches to the specified perspective in the main application window,
+	 * decoding it on a background thread if necessary.
+	 *
+	 * @see #loadPerspectiveAsync(String, Component)
+	 */
+	public CompletableFuture<Perspective> loadPerspectiveAsync(String perspectiveId) {
+		return loadPerspectiveAsync(perspectiveId, null);
+	}
+	
+	/**
+	 * Switches to the specified perspective, decoding it on a background
+	 * thread if it has been stored but not read yet. Decoding is the only
+	 * work done off the event dispatch thread, and only produces a private
+	 * copy of the perspective. Everything else happens on the event dispatch
+	 * thread as part of a regular switch: the copy is registered, the
+	 * {@code PerspectiveFactory} and {@code DockableFactory} are consulted and
+	 * the layout is planned and applied.
+	 * <p>
+	 * Requesting another switch before this one has been applied cancels it,
+	 * as does cancelling the returned future. A switch that has already been
+	 * applied is not undone.
+	 *
+	 * @param perspectiveId the persistent id of the perspective to load
+	 * @param window        a component within the window to load the
+	 *                      perspective into, or {@code null} for the main
+	 *                      application window
+	 * @return a future completed with the loaded perspective once it has been
+	 * applied, or with {@code null} if no such perspective exists
+	 */
+	public synchronized CompletableFuture<Perspective> loadPerspectiveAsync(String perspectiveId, Component window) {
+		// a newer switch supersedes one still in progress
+		if (this.pendingLoad != null) {
+			this.pendingLoad.cancel(false);
+		}
+		
+		CompletableFuture<Perspective> result = new CompletableFuture<>();
+		this.pendingLoad = result;
+		Runnable start = () -> {
+			// the perspective maps are only ever touched on the event dispatch thread
+			Callable<Perspective> decoder = perspectiveId == null || this.perspectives.containsKey(perspectiveId) ? null
+					: this.deferredPerspectives.get(perspectiveId);
+			CompletableFuture.supplyAsync(() -> decode(perspectiveId, decoder, result), this.loader)
+					.whenComplete((decoded, ex) -> EventQueue.invokeLater(
+							() -> completeLoad(perspectiveId, window, decoder, decoded, ex, result)));
+		};
+		if (EventQueue.isDispatchThread()) {
+			start.run();
+		}
+		else {
+			EventQueue.invokeLater(start);
+		}
+		return result;
+	}
+	
+	/**
+	 * Decodes a stored perspective without publishing it anywhere.
+	 */
+	private static Perspective decode(String perspectiveId, Callable<Perspective> decoder, CompletableFuture<Perspective> request) {
+		if (decoder == null || request.isDone()) {
+			return null;
+		}
+		try {
+			return PerspectiveModel.loadDeferredPerspective(perspectiveId, decoder);
+		} catch (IllegalStateException ex) {
+			ex.printStackTrace();
+			return null;
+		}
+	}
+	
+	private void completeLoad(String perspectiveId, Component window, Callable<Perspective> decoder,
+			Perspective decoded, Throwable ex, CompletableFuture<Perspective> result) {
+		try {
+			if (ex != null) {
+				result.completeExceptionally(ex);
+			}
+			else if (!result.isDone()) {
+				// publish the decoded copy unless the perspective was read in the meantime
+				if (decoder != null && this.deferredPerspectives.get(perspectiveId) == decoder) {
+					this.deferredPerspectives.remove(perspectiveId);
+					if (decoded != null) {
+						add(decoded);
+					}
+				}
+				Perspective perspective = getPerspective(perspectiveId);
+				if (perspective != null) {
+					loadPerspective(perspectiveId, window, false);
+				}
+				result.complete(perspective);
+			}
+		} catch (RuntimeException | Error e) {
+			result.completeExceptionally(e);
+		} finally {
+			synchronized (this) {
+				if (this.pendingLoad == result) {
+					this.pendingLoad = null;
+				}
+			}
+		}
+	}
+	
 	private void loadPerspectiveImpl(String perspectiveId, final DockingPort rootPort, boolean reset) {
 		if (perspectiveId == null) {
 			return;
@@ -424,7 +611,16 @@ public class PerspectiveManager implements LayoutManager {
 		// restore when we switch back
 		if (current != null) {
 			cacheLayoutState(current, rootPort);
-			current.unload();
+			Component detached = reset || current == perspective ? null : realizedLayouts.detach(current, rootPort);
+			if (detached != null) {
+				current.unload(detached);
+			}
+			else if (reset || perspective == null) {
+				current.unload();
+			}
+			else {
+				current.unload(perspective, rootPort);
+			}
 		}
 		
 		// if the new perspective isn't available, then we're done
@@ -432,13 +628,23 @@ public class PerspectiveManager implements LayoutManager {
 			return;
 		}
 		
+		// dockables held by other retained trees still look docked and would
+		// not be restored, so take them back before loading
+		realizedLayouts.release(perspective.getDockableIds(), reset ? null : perspectiveId);
+		
 		synchronized (this) {
 			setCurrentPerspectiveName(perspectiveId);
 			if (reset) {
+				realizedLayouts.invalidate(perspectiveId);
 				perspective.reset(rootPort);
 				EventManager.dispatch(new PerspectiveEvent(perspective, current,
 						PerspectiveEvent.RESET));
 			}
+			else if (realizedLayouts.attach(perspective, rootPort)) {
+				perspective.loadRealized();
+				EventManager.dispatch(new PerspectiveEvent(perspective, current,
+						PerspectiveEvent.CHANGED));
+			}
 			else {
 				perspective.load(rootPort);
 				EventManager.dispatch(new PerspectiveEvent(perspective, current,
@@ -466,6 +672,50 @@ public class PerspectiveManager implements LayoutManager {
 		return RestorationManager.getInstance().restore(dockable);
 	}
 	
+	/**
+	 * Sets the maximum number of perspectives whose realized component trees
+	 * are kept alive after switching away from them, so that switching back
+	 * only has to re-attach the retained tree to the root
+	 * {@code DockingPort}. While retained, the {@code Dockables} of such a
+	 * tree remain docked within it, even though it is not displayed; loading
+	 * another perspective that displays any of them discards the tree. A value
+	 * of {@code 0}, the default, disables the cache and discards any
+	 * retained trees.
+	 *
+	 * @param maxEntries the maximum number of retained component trees
+	 * @see #setRealizedLayoutMemoryBudget(long)
+	 */
+	public void setRealizedLayoutCacheSize(int maxEntries) {
+		realizedLayouts.setMaxEntries(maxEntries);
+	}
+
+	public int getRealizedLayoutCacheSize() {
+		return realizedLayouts.getMaxEntries();
+	}
+
+	/**
+	 * Sets the estimated number of bytes that retained perspective component
+	 * trees may occupy before the least recently used ones are discarded. The
+	 * estimate is a rough heuristic based on the number of retained
+	 * {@code Components}, not a measurement of the heap. A
+	 * value of {@code 0} or less removes the limit.
+	 *
+	 * @param bytes the estimated memory budget of the retained trees
+	 * @see #setRealizedLayoutCacheSize(int)
+	 */
+	public void setRealizedLayoutMemoryBudget(long bytes) {
+		realizedLayouts.setMemoryBudget(bytes);
+	}
+
+	public long getRealizedLayoutMemoryBudget() {
+		long budget = realizedLayouts.getMemoryBudget();
+		return budget == Long.MAX_VALUE ? 0 : budget;
+	}
+
+	static void invalidateRealizedLayouts(Dockable dockable) {
+		getInstance().realizedLayouts.invalidate(dockable);
+	}
+
 	static void setDockingStateListening(boolean enabled) {
 		UPDATE_LISTENER.setEnabled(enabled);
 	}
@@ -488,22 +738,60 @@ public class PerspectiveManager implements LayoutManager {
 			return;
 		}
 		
-		EventQueue.invokeLater(() -> {
-			for (Dockable dockable : dockables) {
-				UPDATE_LISTENER.updateState(dockable);
-			}
-		});
+		for (Dockable dockable : dockables) {
+			UPDATE_LISTENER.scheduleUpdate(dockable);
+		}
 	}
 	
 	@Override
-	public synchronized boolean store() throws IOException, PersistenceException {
+	public boolean store() throws IOException, PersistenceException {
 		return store(null);
 	}
 	
+	/**
+	 * Stores the perspectives and waits for them to be written. Writes go
+	 * through the same queue as {@link #storeAsync(String)}, so they are never
+	 * interleaved with a background store of the same file.
+	 */
 	@Override
-	public synchronized boolean store(String persistenceKey) throws IOException, PersistenceException {
+	public boolean store(String persistenceKey) throws IOException, PersistenceException {
+		return await(storeAsync(persistenceKey), "store");
+	}
+	
+	private static <T> T await(CompletableFuture<T> future, String action) throws IOException, PersistenceException {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted while waiting to " + action + " perspectives");
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof IOException) {
+				throw (IOException) cause;
+			}
+			if (cause instanceof PersistenceException) {
+				throw (PersistenceException) cause;
+			}
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new PersistenceException("Unable to " + action + " perspectives", (Exception) cause);
+		}
+	}
+	
+	/**
+	 * Captures the perspectives on the calling thread, which should be the
+	 * event dispatch thread, and serializes and writes them on a background
+	 * thread. Stores requested before an earlier one has started are coalesced
+	 * with it, so that only the latest snapshot is written.
+	 */
+	@Override
+	public synchronized CompletableFuture<Boolean> storeAsync(String persistenceKey) {
 		if (this.persistHandler == null) {
-			return false;
+			return CompletableFuture.completedFuture(false);
 		}
 		
 		DockingPort rootPort = findMainDockingPort();
@@ -514,37 +802,111 @@ public class PerspectiveManager implements LayoutManager {
 			items[i] = (Perspective) items[i].clone();
 		}
 		
-		PerspectiveModel info = new PerspectiveModel(this.defaultPerspective, getCurrentPerspectiveName(), items);
+		// perspectives that were never read are unchanged, so they're handed over as
+		// they are and only read by the persister, in the background
+		PerspectiveModel info = new PerspectiveModel(this.defaultPerspective, getCurrentPerspectiveName(), items,
+				this.deferredPerspectives);
+		String pKey = persistenceKey == null ? this.defaultPersistenceKey : persistenceKey;
+		// a model read ahead of this store would be out of date
+		this.preloads.remove(pKey);
+		return this.writer.submit(this.persistHandler, pKey, info);
+	}
+	
+	/**
+	 * Starts reading the perspectives stored under the specified persistence
+	 * key on a background thread, so that they have already been parsed by
+	 * the time {@code load()} or {@code restore()} is called for the same key.
+	 * This is typically called as early as possible during startup, before
+	 * the application window is built.
+	 * <p>
+	 * The model read ahead is used by the next {@code load()} of the same
+	 * key, which waits for it if it is still being read. Storing the
+	 * perspectives or changing the {@code PersistenceHandler} in the meantime
+	 * discards it.
+	 *
+	 * @param persistenceKey the persistence key to read, or {@code null} for
+	 *                       the default persistence key
+	 * @return a future completed with the model read, or with {@code null}
+	 * if there is no {@code PersistenceHandler} or nothing has been stored
+	 * @see #load(String)
+	 */
+	public synchronized CompletableFuture<PerspectiveModel> preload(String persistenceKey) {
+		PersistenceHandler handler = this.persistHandler;
+		if (handler == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		
 		String pKey = persistenceKey == null ? this.defaultPersistenceKey : persistenceKey;
-		return this.persistHandler.store(pKey, info);
+		CompletableFuture<PerspectiveModel> preload = this.preloads.get(pKey);
+		if (preload == null) {
+			// don't read a file that a queued store is about to replace
+			preload = this.writer.flush().thenApplyAsync(ignored -> {
+				try {
+					return handler.load(pKey);
+				} catch (IOException | PersistenceException ex) {
+					throw new CompletionException(ex);
+				}
+			}, this.preloader);
+			this.preloads.put(pKey, preload);
+		}
+		return preload;
 	}
 	
 	@Override
-	public synchronized boolean load() throws IOException, PersistenceException {
+	public boolean load() throws IOException, PersistenceException {
 		return load(null);
 	}
 	
+	/**
+	 * Loads the perspectives stored under the specified persistence key,
+	 * using the model read ahead by {@link #preload(String)} if there is one.
+	 * The monitor of this manager is not held while the model is being read,
+	 * so that waiting for a preload never blocks the threads it depends on.
+	 */
 	@Override
-	public synchronized boolean load(String persistenceKey) throws IOException, PersistenceException {
-		if (this.persistHandler == null) {
-			return false;
+	public boolean load(String persistenceKey) throws IOException, PersistenceException {
+		PersistenceHandler handler;
+		String pKey;
+		CompletableFuture<PerspectiveModel> preload;
+		synchronized (this) {
+			handler = this.persistHandler;
+			if (handler == null) {
+				return false;
+			}
+			pKey = persistenceKey == null ? this.defaultPersistenceKey : persistenceKey;
+			preload = this.preloads.remove(pKey);
 		}
 		
-		String pKey = persistenceKey == null ? this.defaultPersistenceKey : persistenceKey;
-		PerspectiveModel info = this.persistHandler.load(pKey);
+		PerspectiveModel info;
+		if (preload != null) {
+			info = await(preload, "load");
+		}
+		else {
+			// don't read a file that a queued store is about to replace
+			this.writer.flush().join();
+			info = handler.load(pKey);
+		}
 		if (info == null) {
 			return false;
 		}
-		
-		Perspective[] perspectives = info.getPerspectives();
+		apply(info);
+		return true;
+	}
+	
+	private synchronized void apply(PerspectiveModel info) {
+		// perspectives other than the current and default one may be deferred by
+		// the persister, and are then only read on first use
+		Perspective[] perspectives = info.getLoadedPerspectives();
 		
 		this.perspectives.clear();
+		this.deferredPerspectives.clear();
+		this.realizedLayouts.clear();
 		for (Perspective perspective : perspectives) {
 			add(perspective);
 		}
+		this.deferredPerspectives.putAll(info.getDeferredPerspectives());
 		setDefaultPerspective(info.getDefaultPerspective());
 		setCurrentPerspectiveName(info.getCurrentPerspective());
-		return true;
 	}
 	
 	public static boolean isRestoreFloatingOnLoad() {
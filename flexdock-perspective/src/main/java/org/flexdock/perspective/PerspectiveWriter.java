@@ -0,0 +1,97 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective;
+
+import org.flexdock.perspective.persist.PersistenceHandler;
+import org.flexdock.perspective.persist.PerspectiveModel;
+
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Writes snapshots of the {@code PerspectiveManager} on a single background
+ * thread. A store requested while an earlier one for the same persistence key
+ * is still waiting to start is coalesced with it: the waiting request takes
+ * the newer snapshot, and both callers share its future.
+ */
+final class PerspectiveWriter {
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "FlexDock Perspective Writer");
+		thread.setDaemon(true);
+		return thread;
+	});
+	// requests that have been queued but not started, by persistence key
+	private final HashMap<String, Request> pending = new HashMap<>();
+
+	CompletableFuture<Boolean> submit(PersistenceHandler handler, String persistenceKey, PerspectiveModel model) {
+		synchronized (pending) {
+			Request request = pending.get(persistenceKey);
+			if (request != null && request.handler == handler) {
+				request.model = model;
+				return request.future;
+			}
+
+			Request next = new Request(handler, persistenceKey, model);
+			pending.put(persistenceKey, next);
+			executor.execute(() -> write(next));
+			return next.future;
+		}
+	}
+
+	/**
+	 * Returns a future that completes once every store requested so far has
+	 * been written.
+	 */
+	CompletableFuture<Void> flush() {
+		return CompletableFuture.runAsync(() -> {
+		}, executor);
+	}
+
+	private void write(Request request) {
+		PerspectiveModel model;
+		synchronized (pending) {
+			if (pending.get(request.persistenceKey) == request) {
+				pending.remove(request.persistenceKey);
+			}
+			model = request.model;
+		}
+
+		try {
+			request.future.complete(request.handler.store(request.persistenceKey, model));
+		} catch (Throwable ex) {
+			request.future.completeExceptionally(ex);
+		}
+	}
+
+	private static class Request {
+		private final PersistenceHandler handler;
+		private final String persistenceKey;
+		private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+		private PerspectiveModel model;
+
+		private Request(PersistenceHandler handler, String persistenceKey, PerspectiveModel model) {
+			this.handler = handler;
+			this.persistenceKey = persistenceKey;
+			this.model = model;
+		}
+	}
+}
@@ -0,0 +1,323 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective;
+
+import org.flexdock.docking.Dockable;
+import org.flexdock.docking.DockingManager;
+import org.flexdock.docking.DockingPort;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps the realized component trees of recently used perspectives alive
+ * after they have been switched away from.
+ * <p>
+ * When a perspective is unloaded, the component docked within the root
+ * {@code DockingPort} is detached and retained here instead of being torn
+ * down, so that switching back to that perspective only has to re-attach it.
+ * Entries are kept in least-recently-used order and evicted once either the
+ * maximum number of entries or the estimated memory budget is exceeded. The
+ * memory estimate is only a rough heuristic: it charges a fixed cost per
+ * retained {@code Component} and does not measure the heap, so component
+ * trees holding large models or images may occupy far more than estimated.
+ * <p>
+ * The {@code Dockables} of a retained tree remain docked within it. Before
+ * another perspective is loaded, every entry holding a {@code Dockable} that
+ * perspective displays must therefore be released, or the {@code Dockable}
+ * would look docked and never be restored. A retained tree is only reused if
+ * it still holds every {@code Dockable} it held when it was detached, it is
+ * re-attached to the same {@code DockingPort}, and the perspective's
+ * restoration layout has not changed in the meantime. Docking or undocking
+ * any of its {@code Dockables} elsewhere invalidates an entry. Invalidated,
+ * released and evicted trees are disposed of by closing the
+ * {@code Dockables} they still contain.
+ * <p>
+ * The cache is disabled until a maximum entry count greater than zero is
+ * set. This class is not thread-safe and should only be used from the event
+ * dispatch thread.
+ *
+ * @see PerspectiveManager#setRealizedLayoutCacheSize(int)
+ * @see PerspectiveManager#setRealizedLayoutMemoryBudget(long)
+ */
+final class RealizedLayoutCache {
+
+	/**
+	 * The number of bytes charged against the memory budget for each
+	 * {@code Component} of a detached tree. This is a rough average, not a
+	 * measurement.
+	 */
+	static final int COMPONENT_COST = 1024;
+
+	private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+	private int maxEntries;
+
+	private long memoryBudget = Long.MAX_VALUE;
+
+	private long estimatedSize;
+
+	int getMaxEntries() {
+		return maxEntries;
+	}
+
+	void setMaxEntries(int maxEntries) {
+		this.maxEntries = Math.max(0, maxEntries);
+		evict();
+	}
+
+	long getMemoryBudget() {
+		return memoryBudget;
+	}
+
+	void setMemoryBudget(long memoryBudget) {
+		this.memoryBudget = memoryBudget <= 0 ? Long.MAX_VALUE : memoryBudget;
+		evict();
+	}
+
+	long getEstimatedSize() {
+		return estimatedSize;
+	}
+
+	boolean isEnabled() {
+		return maxEntries > 0;
+	}
+
+	/**
+	 * Detaches the component docked within the specified {@code DockingPort}
+	 * and retains it for the specified perspective.
+	 *
+	 * @param perspective the perspective currently displayed within {@code port}
+	 * @param port        the root {@code DockingPort} of the perspective
+	 * @return the detached component, or {@code null} if nothing was detached
+	 * and the perspective must be unloaded as usual.
+	 */
+	Component detach(Perspective perspective, DockingPort port) {
+		if (!isEnabled() || perspective == null || !(port instanceof Container)) {
+			return null;
+		}
+
+		ImmutableLayoutNode layout = perspective.getLayout().getRestorationTree();
+		Component content = port.getDockedComponent();
+		if (layout == null || content == null) {
+			return null;
+		}
+
+		Set<String> dockableIds = new HashSet<>();
+		for (Object dockable : port.getDockables()) {
+			dockableIds.add(((Dockable) dockable).getPersistentId());
+		}
+
+		Container container = (Container) port;
+		container.remove(content);
+		container.revalidate();
+		container.repaint();
+
+		Entry entry = new Entry(port, content, layout, dockableIds, estimateSize(content));
+		dispose(remove(perspective.getPersistentId()));
+		entries.put(perspective.getPersistentId(), entry);
+		estimatedSize += entry.size;
+		evict();
+		return content;
+	}
+
+	/**
+	 * Re-attaches the retained component tree of the specified perspective to
+	 * the specified {@code DockingPort}. The entry is removed from the cache
+	 * whether or not it could be reused.
+	 *
+	 * @param perspective the perspective to be displayed within {@code port}
+	 * @param port        the empty root {@code DockingPort}
+	 * @return {@code true} if the retained tree was attached; {@code false} if
+	 * the perspective must be loaded as usual.
+	 */
+	boolean attach(Perspective perspective, DockingPort port) {
+		Entry entry = perspective == null ? null : remove(perspective.getPersistentId());
+		if (entry == null) {
+			return false;
+		}
+
+		if (entry.port != port || port.getDockedComponent() != null || !entry.isIntact()
+				|| !entry.layout.equals(perspective.getLayout().getRestorationTree())) {
+			dispose(entry);
+			return false;
+		}
+
+		Container container = (Container) port;
+		container.add(entry.content);
+		container.revalidate();
+		container.repaint();
+		return true;
+	}
+
+	/**
+	 * Discards every entry whose retained tree contains the specified
+	 * {@code Dockable}. This is called while a docking event for
+	 * {@code dockable} is being dispatched, so the discarded trees are only
+	 * disposed of once that dispatch has completed.
+	 *
+	 * @param dockable the {@code Dockable} that has been docked or undocked
+	 */
+	void invalidate(Dockable dockable) {
+		if (dockable == null) {
+			return;
+		}
+
+		List<Entry> stale = removeAll(Collections.singleton(dockable.getPersistentId()), null);
+		if (!stale.isEmpty()) {
+			EventQueue.invokeLater(() -> stale.forEach(RealizedLayoutCache::dispose));
+		}
+	}
+
+	/**
+	 * Discards every entry other than the one retained for
+	 * {@code keepPerspectiveId} whose retained tree contains any of the
+	 * specified {@code Dockables}, so that they are free to be restored by
+	 * the perspective about to be loaded.
+	 *
+	 * @param dockableIds       the ids of the {@code Dockables} to release
+	 * @param keepPerspectiveId the id of the perspective about to be loaded
+	 */
+	void release(Collection<String> dockableIds, String keepPerspectiveId) {
+		removeAll(dockableIds, keepPerspectiveId).forEach(RealizedLayoutCache::dispose);
+	}
+
+	/**
+	 * Discards the entry retained for the specified perspective, if any.
+	 *
+	 * @param perspectiveId the persistent id of the perspective
+	 */
+	void invalidate(String perspectiveId) {
+		dispose(remove(perspectiveId));
+	}
+
+	/**
+	 * Discards every entry.
+	 */
+	void clear() {
+		List<Entry> stale = new ArrayList<>(entries.values());
+		entries.clear();
+		estimatedSize = 0;
+		stale.forEach(RealizedLayoutCache::dispose);
+	}
+
+	private Entry remove(String perspectiveId) {
+		Entry entry = entries.remove(perspectiveId);
+		if (entry != null) {
+			estimatedSize -= entry.size;
+		}
+		return entry;
+	}
+
+	private List<Entry> removeAll(Collection<String> dockableIds, String keepPerspectiveId) {
+		List<Entry> stale = new ArrayList<>();
+		for (Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+			Map.Entry<String, Entry> mapping = it.next();
+			Entry entry = mapping.getValue();
+			if (!mapping.getKey().equals(keepPerspectiveId) && !Collections.disjoint(entry.dockableIds, dockableIds)) {
+				it.remove();
+				estimatedSize -= entry.size;
+				stale.add(entry);
+			}
+		}
+		return stale;
+	}
+
+	private void evict() {
+		List<Entry> stale = new ArrayList<>();
+		for (Iterator<Entry> it = entries.values().iterator(); it.hasNext()
+				&& (entries.size() > maxEntries || estimatedSize > memoryBudget); ) {
+			Entry entry = it.next();
+			it.remove();
+			estimatedSize -= entry.size;
+			stale.add(entry);
+		}
+		stale.forEach(RealizedLayoutCache::dispose);
+	}
+
+	private static void dispose(Entry entry) {
+		if (entry == null) {
+			return;
+		}
+
+		boolean listening = PerspectiveManager.isDockingStateListening();
+		PerspectiveManager.setDockingStateListening(false);
+		try {
+			for (String id : entry.dockableIds) {
+				Dockable dockable = DockingManager.getDockable(id);
+				if (dockable != null && SwingUtilities.isDescendingFrom(dockable.getComponent(), entry.content)) {
+					DockingManager.close(dockable);
+				}
+			}
+		} finally {
+			PerspectiveManager.setDockingStateListening(listening);
+		}
+	}
+
+	private static long estimateSize(Component comp) {
+		long size = COMPONENT_COST;
+		if (comp instanceof Container) {
+			for (Component child : ((Container) comp).getComponents()) {
+				size += estimateSize(child);
+			}
+		}
+		return size;
+	}
+
+	private static class Entry {
+		private final DockingPort port;
+		private final Component content;
+		private final ImmutableLayoutNode layout;
+		private final Set<String> dockableIds;
+		private final long size;
+
+		private Entry(DockingPort port, Component content, ImmutableLayoutNode layout, Set<String> dockableIds, long size) {
+			this.port = port;
+			this.content = content;
+			this.layout = layout;
+			this.dockableIds = dockableIds;
+			this.size = size;
+		}
+
+		private boolean isIntact() {
+			if (content.getParent() != null) {
+				return false;
+			}
+
+			for (String id : dockableIds) {
+				Dockable dockable = DockingManager.getDockable(id);
+				if (dockable == null || !SwingUtilities.isDescendingFrom(dockable.getComponent(), content)) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+}
@@ -20,12 +20,22 @@
 package org.flexdock.perspective;
 
 import java.awt.Component;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.Vector;
 
 import org.flexdock.docking.Dockable;
 import org.flexdock.docking.DockingManager;
+import org.flexdock.docking.state.DockingPath;
 import org.flexdock.docking.state.DockingState;
+import org.flexdock.docking.state.tree.SplitNode;
 import org.flexdock.event.EventManager;
 import org.flexdock.event.RegistrationEvent;
 import org.flexdock.perspective.restore.handlers.AlreadyRestoredHandler;
@@ -87,7 +97,7 @@ public class RestorationManager {
 	public boolean restore(Dockable dockable) {
 		if (dockable != null) {
 			DockingState info = PerspectiveManager.getInstance().getDockingState(dockable, true);
-			HashMap context = new HashMap();
+			HashMap<Object, Object> context = new HashMap<>();
 			for (RestorationHandler handler : restorationHandlers) {
 				if (handler.restore(dockable, info, context)) {
 					return true;
@@ -98,6 +108,136 @@ public class RestorationManager {
 		return false;
 	}
 	
+	/**
+	 * Restores the specified {@code Dockables} as a single batch.
+	 * <p>
+	 * {@code Dockables} are restored after any other {@code Dockable} in the
+	 * batch that they are docked relative to, either as their relative parent
+	 * or as a sibling along their docking path. Rather than trying each
+	 * {@code RestorationHandler} in turn, the handler is chosen from the kind
+	 * of {@code DockingState} being restored; the full handler chain is only
+	 * consulted if that handler fails. {@code Dockables} that are already
+	 * docked are left as they are and are not activated.
+	 *
+	 * @param dockables the {@code Dockables} to restore
+	 * @return {@code true} if every {@code Dockable} was restored;
+	 * {@code false} otherwise.
+	 * @see #restore(Dockable)
+	 */
+	public boolean restoreAll(Collection<? extends Dockable> dockables) {
+		Map<String, Dockable> pending = new LinkedHashMap<>();
+		Map<String, DockingState> states = new HashMap<>();
+		for (Dockable dockable : dockables) {
+			if (dockable != null && !pending.containsKey(dockable.getPersistentId())) {
+				pending.put(dockable.getPersistentId(), dockable);
+				states.put(dockable.getPersistentId(), PerspectiveManager.getInstance().getDockingState(dockable, true));
+			}
+		}
+		
+		List<Dockable> ordered = new ArrayList<>(pending.size());
+		Set<String> visited = new HashSet<>();
+		for (String id : pending.keySet()) {
+			sortByDependency(id, pending, states, visited, ordered);
+		}
+		
+		boolean restored = true;
+		HashMap<Object, Object> context = new HashMap<>();
+		for (Dockable dockable : ordered) {
+			if (!DockingManager.isDocked(dockable)) {
+				DockingState info = states.get(dockable.getPersistentId());
+				if (!restore(dockable, info, selectHandler(info), context)) {
+					restored = false;
+				}
+			}
+		}
+		return restored;
+	}
+	
+	private boolean restore(Dockable dockable, DockingState info, RestorationHandler selected, HashMap<Object, Object> context) {
+		if (selected != null && selected.restore(dockable, info, context)) {
+			return true;
+		}
+		
+		for (RestorationHandler handler : restorationHandlers) {
+			if (handler != selected && handler.restore(dockable, info, context)) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private RestorationHandler selectHandler(DockingState info) {
+		Class<? extends RestorationHandler> kind;
+		if (info == null) {
+			kind = UnknownStateHandler.class;
+		}
+		else if (info.isFloating()) {
+			kind = FloatingHandler.class;
+		}
+		else if (info.isMinimized()) {
+			kind = MinimizedHandler.class;
+		}
+		else if (info.getRelativeParentId() != null) {
+			kind = RelativeHandler.class;
+		}
+		else if (info.hasDockingPath()) {
+			kind = DockPathHandler.class;
+		}
+		else if (info.hasCenterPoint()) {
+			kind = PointHandler.class;
+		}
+		else {
+			kind = UnknownStateHandler.class;
+		}
+		
+		for (RestorationHandler handler : restorationHandlers) {
+			if (handler.getClass() == kind) {
+				return handler;
+			}
+		}
+		return null;
+	}
+	
+	private static void sortByDependency(String id, Map<String, Dockable> pending, Map<String, DockingState> states,
+										 Set<String> visited, List<Dockable> ordered) {
+		// marking before visiting dependencies breaks any cycles
+		if (!visited.add(id)) {
+			return;
+		}
+		
+		for (String dependency : getDependencies(states.get(id))) {
+			if (pending.containsKey(dependency)) {
+				sortByDependency(dependency, pending, states, visited, ordered);
+			}
+		}
+		ordered.add(pending.get(id));
+	}
+	
+	private static Set<String> getDependencies(DockingState info) {
+		Set<String> ids = new LinkedHashSet<>();
+		if (info == null) {
+			return ids;
+		}
+		
+		if (info.getRelativeParentId() != null) {
+			ids.add(info.getRelativeParentId());
+		}
+		DockingPath path = info.getPath();
+		if (path != null) {
+			if (path.getSiblingId() != null) {
+				ids.add(path.getSiblingId());
+			}
+			for (SplitNode node : path.getNodes()) {
+				String siblingId = node.getSiblingId();
+				if (siblingId != null) {
+					ids.add(siblingId);
+				}
+			}
+		}
+		ids.remove(info.getDockableId());
+		return ids;
+	}
+	
 	private static RootWindow getRestoreWindow(Dockable dockable) {
 		// TODO: fix this code to keep track of the proper dialog owner
 		RootWindow[] windows = DockingManager.getDockingWindows();
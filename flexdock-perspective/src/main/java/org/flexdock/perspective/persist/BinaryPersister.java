@@ -0,0 +1,1139 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective.persist;
+
+import org.flexdock.docking.DockingConstants;
+import org.flexdock.docking.state.DockingPath;
+import org.flexdock.docking.state.DockingState;
+import org.flexdock.docking.state.FloatingGroup;
+import org.flexdock.docking.state.PersistenceException;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
+import org.flexdock.docking.state.tree.SplitNode;
+import org.flexdock.perspective.Layout;
+import org.flexdock.perspective.LayoutSequence;
+import org.flexdock.perspective.Perspective;
+
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.StreamCorruptedException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * A {@code Persister} that stores a {@code PerspectiveModel} in a compact
+ * binary format. It is considerably smaller and faster to encode than the XML
+ * written by {@code XMLPersister}, and unlike the Java serialization used by
+ * {@code DefaultFilePersister} it does not depend on the serialized form of any
+ * class.
+ * <p>
+ * A file starts with a four byte magic number and a format version, followed
+ * by a table of every {@code String} in the file and then the model itself.
+ * Ids are written as indexes into the string table, and integers as variable
+ * length quantities. The model is made up of tagged records, each of which is
+ * prefixed with its length and splits its content into a block of fields and a
+ * list of child records. Later versions of this class may append fields to a
+ * block or add records with new tags; readers skip whatever they do not
+ * understand, so the format version only changes for incompatible revisions.
+ * <p>
+ * A file may be followed by journal batches written by
+ * {@link #append(OutputStream, Digest, Digest, PerspectiveModel)}. Each batch
+ * carries its own string table and records the docking states, floating
+ * groups, restoration layouts and perspectives that changed since the previous
+ * batch or snapshot; {@link #load(InputStream)} replays them in order. A batch
+ * cut short by a crash is ignored, losing only the changes it described.
+ * <p>
+ * The model record starts with a table of contents giving the offset of each
+ * perspective. When loading, only the current and default perspectives are
+ * decoded; the others are returned as deferred perspectives of the
+ * {@code PerspectiveModel}, decoded from the file's bytes when first asked for.
+ * A deferred perspective that is handed back to a journaled store without
+ * having been decoded is known to be unchanged, and is not decoded to compute
+ * its digest; it is only decoded if a full snapshot has to be written.
+ *
+ * @see PerspectiveFileConverter
+ */
+public class BinaryPersister implements Persister {
+	/**
+	 * The format version written by this class. Files with a greater version
+	 * are rejected.
+	 */
+	public static final int FORMAT_VERSION = 1;
+
+	private static final int MAGIC = 0x46445042; // "FDPB"
+
+	private static final int STRING_TABLE = 1;
+	private static final int PERSPECTIVE_MODEL = 2;
+	private static final int PERSPECTIVE = 3;
+	private static final int LAYOUT = 4;
+	private static final int LAYOUT_SEQUENCE = 5;
+	private static final int DOCKING_STATE = 6;
+	private static final int DOCKING_PATH = 7;
+	private static final int FLOATING_GROUP = 8;
+	private static final int DOCKING_PORT_NODE = 9;
+	private static final int SPLIT_NODE = 10;
+	private static final int DOCKABLE_NODE = 11;
+
+	private static final int JOURNAL = 12;
+	private static final int JOURNAL_MODEL = 13;
+	private static final int JOURNAL_PERSPECTIVE_REMOVED = 14;
+	private static final int JOURNAL_DOCKING_STATE = 15;
+	private static final int JOURNAL_DOCKING_STATE_REMOVED = 16;
+	private static final int JOURNAL_FLOATING_GROUP = 17;
+	private static final int JOURNAL_FLOATING_GROUP_REMOVED = 18;
+	private static final int JOURNAL_RESTORATION_LAYOUT = 19;
+
+	/**
+	 * Returns {@code true} if the specified stream starts with the header
+	 * written by this class. The stream must support {@code mark()}; it is
+	 * reset to its current position before returning.
+	 */
+	public static boolean isBinaryFormat(InputStream in) throws IOException {
+		if (!in.markSupported()) {
+			throw new IllegalArgumentException("InputStream must support mark()");
+		}
+		in.mark(4);
+		try {
+			int magic = 0;
+			for (int i = 0; i < 4; i++) {
+				int b = in.read();
+				if (b == -1) {
+					return false;
+				}
+				magic = magic << 8 | b;
+			}
+			return magic == MAGIC;
+		} finally {
+			in.reset();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public boolean store(OutputStream os, PerspectiveModel perspectiveModel) throws IOException {
+		if (os == null || perspectiveModel == null) {
+			return false;
+		}
+
+		// the string table is only complete once the whole model has been encoded
+		StringTable strings = new StringTable();
+		Buffer body = new Buffer(strings);
+		writePerspectiveModel(body, perspectiveModel);
+
+		Buffer header = new Buffer(strings);
+		header.writeInt(MAGIC);
+		header.writeVarint(FORMAT_VERSION);
+		writeStringTable(header, strings);
+
+		header.writeTo(os);
+		body.writeTo(os);
+		os.flush();
+		return true;
+	}
+
+	/**
+	 * Returns a digest of the specified model, against which a later model can
+	 * be compared by {@link #append(OutputStream, Digest, Digest, PerspectiveModel)}.
+	 */
+	Digest digest(PerspectiveModel perspectiveModel) {
+		Digest digest = new Digest(perspectiveModel.getCurrentPerspective(), perspectiveModel.getDefaultPerspective());
+		for (Perspective perspective : perspectiveModel.getLoadedPerspectives()) {
+			digest.perspectives.put(perspective.getPersistentId(), digest(perspective));
+		}
+		for (Map.Entry<String, Callable<Perspective>> entry : perspectiveModel.getDeferredPerspectives().entrySet()) {
+			Callable<Perspective> loader = entry.getValue();
+			if (loader instanceof EncodedPerspective) {
+				// a perspective that was never decoded can't have changed, so it is
+				// identified by where it was read from rather than by its content
+				PerspectiveDigest source = new PerspectiveDigest();
+				source.source = loader;
+				digest.perspectives.put(entry.getKey(), source);
+			} else {
+				digest.perspectives.put(entry.getKey(), digest(PerspectiveModel.loadDeferredPerspective(entry.getKey(), loader)));
+			}
+		}
+		return digest;
+	}
+
+	private PerspectiveDigest digest(Perspective perspective) {
+		PerspectiveDigest digest = new PerspectiveDigest();
+		Buffer header = new Buffer(new StringTable());
+		header.writeString(perspective.getName());
+		if (perspective.getInitialSequence() != null) {
+			writeLayoutSequence(header, perspective.getInitialSequence());
+		}
+		digest.header = header.toDigest();
+
+		Layout layout = perspective.getLayout();
+		for (String dockableId : layout.getDockableIds()) {
+			Buffer buffer = new Buffer(new StringTable());
+			writeDockingState(buffer, layout.getDockingState(dockableId));
+			digest.dockingStates.put(dockableId, buffer.toDigest());
+		}
+		for (String floatingGroupId : layout.getFloatingGroupIds()) {
+			Buffer buffer = new Buffer(new StringTable());
+			writeFloatingGroup(buffer, layout.getGroup(floatingGroupId));
+			digest.floatingGroups.put(floatingGroupId, buffer.toDigest());
+		}
+		if (layout.getRestorationTree() != null) {
+			Buffer buffer = new Buffer(new StringTable());
+			writeLayoutNode(buffer, layout.getRestorationTree());
+			digest.restorationLayout = buffer.toDigest();
+		}
+		return digest;
+	}
+
+	/**
+	 * Appends a journal batch to a file written by this class, recording how
+	 * {@code perspectiveModel} differs from the model the file currently holds.
+	 *
+	 * @param os       a stream positioned at the end of the file
+	 * @param previous the digest of the model the file currently holds
+	 * @param current  the digest of {@code perspectiveModel}
+	 * @return the number of journal entries written; {@code 0} if nothing
+	 * changed, in which case nothing is written at all.
+	 */
+	int append(OutputStream os, Digest previous, Digest current, PerspectiveModel perspectiveModel) throws IOException {
+		StringTable strings = new StringTable();
+		Buffer entries = new Buffer(strings);
+		int count = 0;
+
+		if (!equals(previous.currentPerspective, current.currentPerspective)
+				|| !equals(previous.defaultPerspective, current.defaultPerspective)) {
+			Buffer fields = entries.newBuffer();
+			fields.writeString(current.currentPerspective);
+			fields.writeString(current.defaultPerspective);
+			entries.writeRecord(JOURNAL_MODEL, fields, null);
+			count++;
+		}
+		for (String perspectiveId : previous.perspectives.keySet()) {
+			if (!current.perspectives.containsKey(perspectiveId)) {
+				Buffer fields = entries.newBuffer();
+				fields.writeString(perspectiveId);
+				entries.writeRecord(JOURNAL_PERSPECTIVE_REMOVED, fields, null);
+				count++;
+			}
+		}
+
+		HashMap<String, Perspective> loaded = new HashMap<>();
+		for (Perspective perspective : perspectiveModel.getLoadedPerspectives()) {
+			loaded.put(perspective.getPersistentId(), perspective);
+		}
+		Map<String, Callable<Perspective>> deferred = perspectiveModel.getDeferredPerspectives();
+		for (Map.Entry<String, PerspectiveDigest> digest : current.perspectives.entrySet()) {
+			String perspectiveId = digest.getKey();
+			PerspectiveDigest before = previous.perspectives.get(perspectiveId);
+			PerspectiveDigest after = digest.getValue();
+			if (after.source != null && before != null && before.source == after.source) {
+				// still the same undecoded perspective
+				continue;
+			}
+
+			// deferred perspectives are only decoded if they need to be written
+			Perspective perspective = loaded.get(perspectiveId);
+			if (perspective == null) {
+				perspective = PerspectiveModel.loadDeferredPerspective(perspectiveId, deferred.get(perspectiveId));
+			}
+			if (before == null || after.source != null || !Arrays.equals(before.header, after.header)) {
+				// new perspectives, and those whose name or initial sequence changed, are
+				// journaled whole
+				writePerspective(entries, perspective);
+				count++;
+				continue;
+			}
+
+			Layout layout = perspective.getLayout();
+			for (String dockableId : before.dockingStates.keySet()) {
+				if (!after.dockingStates.containsKey(dockableId)) {
+					entries.writeRecord(JOURNAL_DOCKING_STATE_REMOVED, journalFields(entries, perspectiveId, dockableId), null);
+					count++;
+				}
+			}
+			for (Map.Entry<String, byte[]> entry : after.dockingStates.entrySet()) {
+				if (!Arrays.equals(before.dockingStates.get(entry.getKey()), entry.getValue())) {
+					Buffer children = entries.newBuffer();
+					writeDockingState(children, layout.getDockingState(entry.getKey()));
+					entries.writeRecord(JOURNAL_DOCKING_STATE, journalFields(entries, perspectiveId, null), children);
+					count++;
+				}
+			}
+			for (String floatingGroupId : before.floatingGroups.keySet()) {
+				if (!after.floatingGroups.containsKey(floatingGroupId)) {
+					entries.writeRecord(JOURNAL_FLOATING_GROUP_REMOVED, journalFields(entries, perspectiveId, floatingGroupId), null);
+					count++;
+				}
+			}
+			for (Map.Entry<String, byte[]> entry : after.floatingGroups.entrySet()) {
+				if (!Arrays.equals(before.floatingGroups.get(entry.getKey()), entry.getValue())) {
+					Buffer children = entries.newBuffer();
+					writeFloatingGroup(children, layout.getGroup(entry.getKey()));
+					entries.writeRecord(JOURNAL_FLOATING_GROUP, journalFields(entries, perspectiveId, null), children);
+					count++;
+				}
+			}
+			if (!Arrays.equals(before.restorationLayout, after.restorationLayout)) {
+				Buffer children = null;
+				if (layout.getRestorationTree() != null) {
+					children = entries.newBuffer();
+					writeLayoutNode(children, layout.getRestorationTree());
+				}
+				entries.writeRecord(JOURNAL_RESTORATION_LAYOUT, journalFields(entries, perspectiveId, null), children);
+				count++;
+			}
+		}
+
+		if (count == 0) {
+			return 0;
+		}
+		Buffer batch = new Buffer(strings);
+		writeStringTable(batch, strings);
+		batch.writeRecord(JOURNAL, batch.newBuffer(), entries);
+		// a single write, so that a crash leaves at most this batch incomplete
+		batch.writeTo(os);
+		os.flush();
+		return count;
+	}
+
+	private static Buffer journalFields(Buffer out, String perspectiveId, String id) {
+		Buffer fields = out.newBuffer();
+		fields.writeString(perspectiveId);
+		if (id != null) {
+			fields.writeString(id);
+		}
+		return fields;
+	}
+
+	private static boolean equals(String a, String b) {
+		return a == null ? b == null : a.equals(b);
+	}
+
+	private static void writeStringTable(Buffer out, StringTable strings) {
+		Buffer table = out.newBuffer();
+		table.writeVarint(strings.size());
+		for (String string : strings.values) {
+			byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+			table.writeVarint(bytes.length);
+			table.write(bytes, 0, bytes.length);
+		}
+		out.writeRecord(STRING_TABLE, table, null);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public PerspectiveModel load(InputStream is) throws IOException, PersistenceException {
+		if (is == null) {
+			return null;
+		}
+
+		Input in = new Input(readFully(is));
+		if (in.readInt() != MAGIC) {
+			throw new StreamCorruptedException("Not a binary perspective file");
+		}
+		int version = in.readVarint();
+		if (version > FORMAT_VERSION) {
+			throw new PersistenceException("Unsupported binary perspective format version: " + version, null);
+		}
+
+		ModelSource perspectiveModel = null;
+		while (in.hasMore(in.limit())) {
+			int tag;
+			int end;
+			try {
+				tag = in.readVarint();
+				end = in.readLength();
+			} catch (EOFException ex) {
+				if (perspectiveModel == null) {
+					throw ex;
+				}
+				// a journal batch cut short while it was being appended
+				break;
+			}
+
+			if (tag == STRING_TABLE) {
+				readStringTable(in);
+			} else if (tag == PERSPECTIVE_MODEL && perspectiveModel == null) {
+				perspectiveModel = readPerspectiveModel(in, end);
+			} else if (tag == JOURNAL && perspectiveModel != null) {
+				readJournal(in, end, perspectiveModel);
+			}
+			in.seek(end);
+		}
+		return perspectiveModel == null ? null : createPerspectiveModel(in.data, perspectiveModel);
+	}
+
+	/**
+	 * Decodes the current and default perspectives, and defers decoding the
+	 * rest until they are asked for.
+	 */
+	private PerspectiveModel createPerspectiveModel(byte[] data, ModelSource model) throws IOException {
+		List<Perspective> perspectives = new ArrayList<>();
+		LinkedHashMap<String, Callable<Perspective>> deferred = new LinkedHashMap<>();
+		for (Map.Entry<String, PerspectiveSource> entry : model.perspectives.entrySet()) {
+			String perspectiveId = entry.getKey();
+			PerspectiveSource source = entry.getValue();
+			if (perspectiveId.equals(model.currentPerspective) || perspectiveId.equals(model.defaultPerspective)) {
+				perspectives.add(readPerspective(data, source));
+			} else {
+				deferred.put(perspectiveId, new EncodedPerspective(data, source));
+			}
+		}
+		return new PerspectiveModel(model.defaultPerspective, model.currentPerspective,
+				perspectives.toArray(new Perspective[0]), deferred);
+	}
+
+	/**
+	 * Decodes a perspective and replays the journal entries recorded for it.
+	 * Each call returns a new {@code Perspective}, and calls may be made from
+	 * any thread.
+	 */
+	private Perspective readPerspective(byte[] data, PerspectiveSource source) throws IOException {
+		Input in = new Input(data);
+		in.strings = source.strings;
+		in.seek(source.start);
+		Perspective perspective = readPerspective(in, source.end);
+
+		Map<String, Perspective> perspectives = Collections.singletonMap(perspective.getPersistentId(), perspective);
+		for (JournalEntry entry : source.journal) {
+			in.strings = entry.strings;
+			in.seek(entry.start);
+			readJournalEntry(in, entry.tag, entry.end, perspectives);
+		}
+		return perspective;
+	}
+
+	private void readJournal(Input in, int end, ModelSource model) throws IOException {
+		in.seek(in.readLength());
+
+		while (in.hasMore(end)) {
+			int tag = in.readVarint();
+			int entryEnd = in.readLength();
+			int entryStart = in.position();
+			if (tag == PERSPECTIVE) {
+				in.readLength();
+				model.perspectives.put(in.readString(), new PerspectiveSource(in.strings, entryStart, entryEnd));
+			} else if (tag == JOURNAL_MODEL) {
+				in.readLength();
+				model.currentPerspective = in.readString();
+				model.defaultPerspective = in.readString();
+			} else if (tag == JOURNAL_PERSPECTIVE_REMOVED) {
+				in.readLength();
+				model.perspectives.remove(in.readString());
+			} else {
+				// applied when the perspective is decoded
+				in.readLength();
+				PerspectiveSource source = model.perspectives.get(in.readString());
+				if (source != null) {
+					source.journal.add(new JournalEntry(in.strings, tag, entryStart, entryEnd));
+				}
+			}
+			in.seek(entryEnd);
+		}
+	}
+
+	private void readJournalEntry(Input in, int tag, int end, Map<String, Perspective> perspectives) throws IOException {
+		int fieldsEnd = in.readLength();
+		Perspective perspective = perspectives.get(in.readString());
+		if (perspective == null) {
+			return;
+		}
+		Layout layout = perspective.getLayout();
+
+		switch (tag) {
+		case JOURNAL_DOCKING_STATE_REMOVED:
+			layout.remove(in.readString());
+			return;
+		case JOURNAL_FLOATING_GROUP_REMOVED:
+			layout.removeFloatingGroup(in.readString());
+			return;
+		case JOURNAL_RESTORATION_LAYOUT:
+			layout.setRestorationTree(null);
+			break;
+		case JOURNAL_DOCKING_STATE:
+		case JOURNAL_FLOATING_GROUP:
+			break;
+		default:
+			return;
+		}
+		in.seek(fieldsEnd);
+
+		while (in.hasMore(end)) {
+			int childTag = in.readVarint();
+			int childEnd = in.readLength();
+			if (tag == JOURNAL_DOCKING_STATE && childTag == DOCKING_STATE) {
+				DockingState dockingState = readDockingState(in, childEnd);
+				layout.setDockingState(dockingState.getDockableId(), dockingState);
+			} else if (tag == JOURNAL_FLOATING_GROUP && childTag == FLOATING_GROUP) {
+				layout.addFloatingGroup(readFloatingGroup(in));
+			} else if (tag == JOURNAL_RESTORATION_LAYOUT && childTag == DOCKING_PORT_NODE) {
+				layout.setRestorationTree(readLayoutNode(in, childTag, childEnd));
+			}
+			in.seek(childEnd);
+		}
+	}
+
+	private static byte[] readFully(InputStream is) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+		byte[] buffer = new byte[4096];
+		for (int count; (count = is.read(buffer)) != -1;) {
+			out.write(buffer, 0, count);
+		}
+		return out.toByteArray();
+	}
+
+	private void writePerspectiveModel(Buffer out, PerspectiveModel perspectiveModel) {
+		Buffer fields = out.newBuffer();
+		fields.writeString(perspectiveModel.getCurrentPerspective());
+		fields.writeString(perspectiveModel.getDefaultPerspective());
+
+		// a table of contents, giving the offset of each perspective record from
+		// the start of the children
+		Perspective[] perspectives = perspectiveModel.getPerspectives();
+		fields.writeVarint(perspectives.length);
+		Buffer children = out.newBuffer();
+		for (Perspective perspective : perspectives) {
+			fields.writeString(perspective.getPersistentId());
+			fields.writeVarint(children.size());
+			writePerspective(children, perspective);
+		}
+		out.writeRecord(PERSPECTIVE_MODEL, fields, children);
+	}
+
+	private void writePerspective(Buffer out, Perspective perspective) {
+		Buffer fields = out.newBuffer();
+		fields.writeString(perspective.getPersistentId());
+		fields.writeString(perspective.getName());
+
+		Buffer children = out.newBuffer();
+		writeLayout(children, perspective.getLayout());
+		if (perspective.getInitialSequence() != null) {
+			writeLayoutSequence(children, perspective.getInitialSequence());
+		}
+		out.writeRecord(PERSPECTIVE, fields, children);
+	}
+
+	private void writeLayout(Buffer out, Layout layout) {
+		Buffer children = out.newBuffer();
+		for (String dockableId : layout.getDockableIds()) {
+			writeDockingState(children, layout.getDockingState(dockableId));
+		}
+		for (String floatingGroupId : layout.getFloatingGroupIds()) {
+			writeFloatingGroup(children, layout.getGroup(floatingGroupId));
+		}
+		if (layout.getRestorationTree() != null) {
+			writeLayoutNode(children, layout.getRestorationTree());
+		}
+		out.writeRecord(LAYOUT, out.newBuffer(), children);
+	}
+
+	private void writeLayoutSequence(Buffer out, LayoutSequence layoutSequence) {
+		Buffer children = out.newBuffer();
+		for (DockingState dockingState : layoutSequence.getDockingStates()) {
+			writeDockingState(children, dockingState);
+		}
+		out.writeRecord(LAYOUT_SEQUENCE, out.newBuffer(), children);
+	}
+
+	private void writeDockingState(Buffer out, DockingState dockingState) {
+		Buffer fields = out.newBuffer();
+		fields.writeString(dockingState.getDockableId());
+		fields.writeString(dockingState.getRelativeParentId());
+		fields.writeString(dockingState.getRegion() == null ? null : dockingState.getRegion().name());
+		fields.writeFloat(dockingState.getSplitRatio());
+		fields.writeSignedVarint(dockingState.getMinimizedConstraint());
+		fields.writeString(dockingState.getFloatingGroup());
+		fields.writeSignedVarint(dockingState.getCenterX());
+		fields.writeSignedVarint(dockingState.getCenterY());
+
+		Buffer children = null;
+		if (dockingState.hasDockingPath()) {
+			children = out.newBuffer();
+			writeDockingPath(children, dockingState.getPath());
+		}
+		out.writeRecord(DOCKING_STATE, fields, children);
+	}
+
+	private void writeDockingPath(Buffer out, DockingPath dockingPath) {
+		Buffer fields = out.newBuffer();
+		fields.writeString(dockingPath.getRootPortId());
+		fields.writeString(dockingPath.getSiblingId());
+		fields.writeVarint(dockingPath.isTabbed() ? 1 : 0);
+
+		Buffer children = out.newBuffer();
+		for (SplitNode splitNode : dockingPath.getNodes()) {
+			children.writeRecord(SPLIT_NODE, splitFields(children, splitNode.getOrientation(), splitNode.getRegion(),
+					splitNode.getPercentage(), splitNode.getSiblingId(), splitNode.getDockingRegion()), null);
+		}
+		out.writeRecord(DOCKING_PATH, fields, children);
+	}
+
+	private void writeFloatingGroup(Buffer out, FloatingGroup floatingGroup) {
+		Buffer fields = out.newBuffer();
+		fields.writeString(floatingGroup.getName());
+		Rectangle bounds = floatingGroup.getBounds();
+		fields.writeSignedVarint(bounds.x);
+		fields.writeSignedVarint(bounds.y);
+		fields.writeSignedVarint(bounds.width);
+		fields.writeSignedVarint(bounds.height);
+		fields.writeVarint(floatingGroup.getDockableCount());
+		for (Iterator<?> it = floatingGroup.getDockableIterator(); it.hasNext();) {
+			fields.writeString((String) it.next());
+		}
+		out.writeRecord(FLOATING_GROUP, fields, null);
+	}
+
+	private void writeLayoutNode(Buffer out, ImmutableLayoutNode node) {
+		if (node.getKind() == ImmutableLayoutNode.Kind.DOCKABLE) {
+			Buffer fields = out.newBuffer();
+			fields.writeString(node.getDockableId());
+			out.writeRecord(DOCKABLE_NODE, fields, null);
+			return;
+		}
+
+		Buffer children = out.newBuffer();
+		for (ImmutableLayoutNode child : node.getChildren()) {
+			writeLayoutNode(children, child);
+		}
+		if (node.getKind() == ImmutableLayoutNode.Kind.SPLIT) {
+			out.writeRecord(SPLIT_NODE, splitFields(out, node.getOrientation(), node.getRegion(), node.getPercentage(),
+					node.getSiblingId(), node.getDockingRegion()), children);
+		} else {
+			out.writeRecord(DOCKING_PORT_NODE, out.newBuffer(), children);
+		}
+	}
+
+	private Buffer splitFields(Buffer out, int orientation, int region, float percentage, String siblingId,
+							   DockingConstants.Region dockingRegion) {
+		Buffer fields = out.newBuffer();
+		fields.writeSignedVarint(orientation);
+		fields.writeSignedVarint(region);
+		fields.writeFloat(percentage);
+		fields.writeString(siblingId);
+		fields.writeString(dockingRegion == null ? null : dockingRegion.name());
+		return fields;
+	}
+
+	private void readStringTable(Input in) throws IOException {
+		int fieldsEnd = in.readLength();
+		int count = in.readVarint();
+		if (count < 0 || count > fieldsEnd - in.position()) {
+			throw new StreamCorruptedException("Invalid string table size: " + count);
+		}
+		String[] strings = new String[count];
+		for (int i = 0; i < count; i++) {
+			int end = in.readLength();
+			strings[i] = new String(in.data, in.position, end - in.position, StandardCharsets.UTF_8);
+			in.seek(end);
+		}
+		in.strings = strings;
+		in.seek(fieldsEnd);
+	}
+
+	/**
+	 * Locates the perspectives in the model through its table of contents,
+	 * without decoding them.
+	 */
+	private ModelSource readPerspectiveModel(Input in, int end) throws IOException {
+		int fieldsEnd = in.readLength();
+		ModelSource model = new ModelSource();
+		model.currentPerspective = in.readString();
+		model.defaultPerspective = in.readString();
+		int count = in.readVarint();
+		if (count < 0 || count > fieldsEnd - in.position()) {
+			throw new StreamCorruptedException("Invalid perspective count: " + count);
+		}
+		String[] perspectiveIds = new String[count];
+		int[] offsets = new int[count];
+		for (int i = 0; i < count; i++) {
+			perspectiveIds[i] = in.readString();
+			offsets[i] = in.readVarint();
+		}
+		in.seek(fieldsEnd);
+
+		int childrenStart = in.position();
+		for (int i = 0; i < count; i++) {
+			if (offsets[i] < 0 || offsets[i] >= end - childrenStart) {
+				throw new StreamCorruptedException("Invalid perspective offset: " + offsets[i]);
+			}
+			in.seek(childrenStart + offsets[i]);
+			int tag = in.readVarint();
+			int childEnd = in.readLength();
+			if (tag == PERSPECTIVE) {
+				model.perspectives.put(perspectiveIds[i], new PerspectiveSource(in.strings, in.position(), childEnd));
+			}
+		}
+		return model;
+	}
+
+	private Perspective readPerspective(Input in, int end) throws IOException {
+		int fieldsEnd = in.readLength();
+		Perspective perspective = new Perspective(in.readString(), in.readString());
+		in.seek(fieldsEnd);
+
+		boolean hasLayout = false;
+		while (in.hasMore(end)) {
+			int tag = in.readVarint();
+			int childEnd = in.readLength();
+			if (tag == LAYOUT && !hasLayout) {
+				perspective.setLayout(readLayout(in, childEnd));
+				hasLayout = true;
+			} else if (tag == LAYOUT_SEQUENCE && perspective.getInitialSequence() == null) {
+				perspective.setInitialSequence(readLayoutSequence(in, childEnd));
+			}
+			in.seek(childEnd);
+		}
+		return perspective;
+	}
+
+	private Layout readLayout(Input in, int end) throws IOException {
+		in.seek(in.readLength());
+
+		Layout layout = new Layout();
+		while (in.hasMore(end)) {
+			int tag = in.readVarint();
+			int childEnd = in.readLength();
+			if (tag == DOCKING_STATE) {
+				DockingState dockingState = readDockingState(in, childEnd);
+				layout.setDockingState(dockingState.getDockableId(), dockingState);
+			} else if (tag == FLOATING_GROUP) {
+				layout.addFloatingGroup(readFloatingGroup(in));
+			} else if (tag == DOCKING_PORT_NODE && layout.getRestorationTree() == null) {
+				layout.setRestorationTree(readLayoutNode(in, tag, childEnd));
+			}
+			in.seek(childEnd);
+		}
+		return layout;
+	}
+
+	private LayoutSequence readLayoutSequence(Input in, int end) throws IOException {
+		in.seek(in.readLength());
+
+		LayoutSequence layoutSequence = new LayoutSequence();
+		while (in.hasMore(end)) {
+			int tag = in.readVarint();
+			int childEnd = in.readLength();
+			if (tag == DOCKING_STATE) {
+				layoutSequence.add(readDockingState(in, childEnd));
+			}
+			in.seek(childEnd);
+		}
+		return layoutSequence;
+	}
+
+	private DockingState readDockingState(Input in, int end) throws IOException {
+		int fieldsEnd = in.readLength();
+		DockingState dockingState = new DockingState(in.readString());
+		dockingState.setRelativeParentId(in.readString());
+		dockingState.setRegion(readRegion(in));
+		dockingState.setSplitRatio(in.readFloat());
+		dockingState.setMinimizedConstraint(in.readSignedVarint());
+		String floatingGroup = in.readString();
+		if (floatingGroup != null) {
+			dockingState.setFloatingGroup(floatingGroup);
+		}
+		dockingState.setCenterX(in.readSignedVarint());
+		dockingState.setCenterY(in.readSignedVarint());
+		in.seek(fieldsEnd);
+
+		while (in.hasMore(end)) {
+			int tag = in.readVarint();
+			int childEnd = in.readLength();
+			if (tag == DOCKING_PATH && !dockingState.hasDockingPath()) {
+				dockingState.setPath(readDockingPath(in, childEnd));
+			}
+			in.seek(childEnd);
+		}
+		return dockingState;
+	}
+
+	private DockingPath readDockingPath(Input in, int end) throws IOException {
+		int fieldsEnd = in.readLength();
+		DockingPath dockingPath = new DockingPath();
+		dockingPath.setRootPortId(in.readString());
+		dockingPath.setSiblingId(in.readString());
+		dockingPath.setTabbed(in.readVarint() != 0);
+		in.seek(fieldsEnd);
+
+		while (in.hasMore(end)) {
+			int tag = in.readVarint();
+			int childEnd = in.readLength();
+			if (tag == SPLIT_NODE) {
+				ImmutableLayoutNode node = readLayoutNode(in, tag, childEnd);
+				SplitNode splitNode = new SplitNode(node.getOrientation(), node.getRegion(), node.getPercentage(), node.getSiblingId());
+				splitNode.setDockingRegion(node.getDockingRegion());
+				dockingPath.getNodes().add(splitNode);
+			}
+			in.seek(childEnd);
+		}
+		return dockingPath;
+	}
+
+	private FloatingGroup readFloatingGroup(Input in) throws IOException {
+		int fieldsEnd = in.readLength();
+		FloatingGroup floatingGroup = new FloatingGroup(in.readString());
+		int x = in.readSignedVarint();
+		int y = in.readSignedVarint();
+		int width = in.readSignedVarint();
+		int height = in.readSignedVarint();
+		floatingGroup.setBounds(new Rectangle(x, y, width, height));
+		for (int count = in.readVarint(); count > 0; count--) {
+			floatingGroup.addDockable(in.readString());
+		}
+		in.seek(fieldsEnd);
+		return floatingGroup;
+	}
+
+	private ImmutableLayoutNode readLayoutNode(Input in, int tag, int end) throws IOException {
+		int fieldsEnd = in.readLength();
+		if (tag == DOCKABLE_NODE) {
+			String dockableId = in.readString();
+			in.seek(fieldsEnd);
+			return ImmutableLayoutNode.dockable(dockableId);
+		}
+
+		int orientation = 0;
+		int region = 0;
+		float percentage = 0;
+		String siblingId = null;
+		DockingConstants.Region dockingRegion = null;
+		if (tag == SPLIT_NODE) {
+			orientation = in.readSignedVarint();
+			region = in.readSignedVarint();
+			percentage = in.readFloat();
+			siblingId = in.readString();
+			dockingRegion = readRegion(in);
+		}
+		in.seek(fieldsEnd);
+
+		List<ImmutableLayoutNode> children = new ArrayList<>(2);
+		while (in.hasMore(end)) {
+			int childTag = in.readVarint();
+			int childEnd = in.readLength();
+			if (childTag == DOCKING_PORT_NODE || childTag == SPLIT_NODE || childTag == DOCKABLE_NODE) {
+				children.add(readLayoutNode(in, childTag, childEnd));
+			}
+			in.seek(childEnd);
+		}
+
+		if (tag == DOCKING_PORT_NODE) {
+			return ImmutableLayoutNode.dockingPort(children.toArray(new ImmutableLayoutNode[0]));
+		}
+		return ImmutableLayoutNode.split(orientation, region, percentage, siblingId, dockingRegion,
+				children.size() > 0 ? children.get(0) : null, children.size() > 1 ? children.get(1) : null);
+	}
+
+	private static DockingConstants.Region readRegion(Input in) throws IOException {
+		String region = in.readString();
+		return region == null ? null : DockingConstants.Region.valueOf(region);
+	}
+
+	/**
+	 * A perspective that has been located in a file but not decoded yet. Each
+	 * call decodes a new {@code Perspective}, and calls may be made from any
+	 * thread.
+	 */
+	private class EncodedPerspective implements Callable<Perspective> {
+		private final byte[] data;
+		private final PerspectiveSource source;
+
+		private EncodedPerspective(byte[] data, PerspectiveSource source) {
+			this.data = data;
+			this.source = source;
+		}
+
+		@Override
+		public Perspective call() throws IOException {
+			return readPerspective(data, source);
+		}
+	}
+
+	/**
+	 * The current and default perspective ids of a model being read, and where
+	 * to find each of its perspectives.
+	 */
+	private static class ModelSource {
+		private String currentPerspective;
+		private String defaultPerspective;
+		private final LinkedHashMap<String, PerspectiveSource> perspectives = new LinkedHashMap<>();
+	}
+
+	/**
+	 * The location of an encoded perspective, and of the journal entries that
+	 * have since changed it.
+	 */
+	private static class PerspectiveSource {
+		private final String[] strings;
+		private final int start;
+		private final int end;
+		private final List<JournalEntry> journal = new ArrayList<>();
+
+		private PerspectiveSource(String[] strings, int start, int end) {
+			this.strings = strings;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	private static class JournalEntry {
+		private final String[] strings;
+		private final int tag;
+		private final int start;
+		private final int end;
+
+		private JournalEntry(String[] strings, int tag, int start, int end) {
+			this.strings = strings;
+			this.tag = tag;
+			this.start = start;
+			this.end = end;
+		}
+	}
+
+	/**
+	 * The encoded form of each part of a {@code PerspectiveModel} that may be
+	 * journaled separately.
+	 */
+	static class Digest {
+		private final String currentPerspective;
+		private final String defaultPerspective;
+		private final LinkedHashMap<String, PerspectiveDigest> perspectives = new LinkedHashMap<>();
+
+		private Digest(String currentPerspective, String defaultPerspective) {
+			this.currentPerspective = currentPerspective;
+			this.defaultPerspective = defaultPerspective;
+		}
+	}
+
+	private static class PerspectiveDigest {
+		// the EncodedPerspective this digest stands for, if it was never decoded
+		private Object source;
+		private byte[] header;
+		private final HashMap<String, byte[]> dockingStates = new HashMap<>();
+		private final HashMap<String, byte[]> floatingGroups = new HashMap<>();
+		private byte[] restorationLayout;
+	}
+
+	/**
+	 * Assigns each distinct {@code String} written to a file its index in the
+	 * string table. Index 0 is reserved for {@code null}.
+	 */
+	private static class StringTable {
+		private final HashMap<String, Integer> indexes = new HashMap<>();
+		private final List<String> values = new ArrayList<>();
+
+		private int indexOf(String value) {
+			if (value == null) {
+				return 0;
+			}
+			Integer index = indexes.get(value);
+			if (index == null) {
+				values.add(value);
+				index = values.size();
+				indexes.put(value, index);
+			}
+			return index;
+		}
+
+		private int size() {
+			return values.size();
+		}
+	}
+
+	/**
+	 * Encodes fields and records into a byte array.
+	 */
+	private static class Buffer extends ByteArrayOutputStream {
+		private final StringTable strings;
+
+		private Buffer(StringTable strings) {
+			super(32);
+			this.strings = strings;
+		}
+
+		private Buffer newBuffer() {
+			return new Buffer(strings);
+		}
+
+		/**
+		 * Returns the encoded content followed by the strings it refers to, so
+		 * that two digests are equal only if the strings are.
+		 */
+		private byte[] toDigest() {
+			for (String string : new ArrayList<>(strings.values)) {
+				byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+				writeVarint(bytes.length);
+				write(bytes, 0, bytes.length);
+			}
+			return toByteArray();
+		}
+
+		private void writeVarint(int value) {
+			while ((value & ~0x7F) != 0) {
+				write(value & 0x7F | 0x80);
+				value >>>= 7;
+			}
+			write(value);
+		}
+
+		/**
+		 * Zigzag encodes {@code value} so that small negative numbers, such as
+		 * the {@code UNINITIALIZED} constants, stay short.
+		 */
+		private void writeSignedVarint(int value) {
+			writeVarint(value << 1 ^ value >> 31);
+		}
+
+		private void writeInt(int value) {
+			write(value >>> 24);
+			write(value >>> 16);
+			write(value >>> 8);
+			write(value);
+		}
+
+		private void writeFloat(float value) {
+			writeInt(Float.floatToIntBits(value));
+		}
+
+		private void writeString(String value) {
+			writeVarint(strings.indexOf(value));
+		}
+
+		/**
+		 * Writes a record with the specified tag. The record's length covers its
+		 * fields and any children, so that readers can skip either.
+		 */
+		private void writeRecord(int tag, Buffer fields, Buffer children) {
+			int childrenSize = children == null ? 0 : children.count;
+			writeVarint(tag);
+			writeVarint(varintSize(fields.count) + fields.count + childrenSize);
+			writeVarint(fields.count);
+			write(fields.buf, 0, fields.count);
+			if (children != null) {
+				write(children.buf, 0, children.count);
+			}
+		}
+
+		private static int varintSize(int value) {
+			int size = 1;
+			while ((value & ~0x7F) != 0) {
+				value >>>= 7;
+				size++;
+			}
+			return size;
+		}
+	}
+
+	/**
+	 * Decodes fields and records from a byte array.
+	 */
+	private static class Input {
+		private final byte[] data;
+		private int position;
+		private String[] strings = new String[0];
+
+		private Input(byte[] data) {
+			this.data = data;
+		}
+
+		private int position() {
+			return position;
+		}
+
+		private int limit() {
+			return data.length;
+		}
+
+		private boolean hasMore(int end) {
+			return position < end;
+		}
+
+		private void seek(int position) {
+			this.position = position;
+		}
+
+		private int readByte() throws EOFException {
+			if (position >= data.length) {
+				throw new EOFException("Truncated binary perspective file");
+			}
+			return data[position++] & 0xFF;
+		}
+
+		private int readVarint() throws IOException {
+			int value = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = readByte();
+				value |= (b & 0x7F) << shift;
+				if ((b & 0x80) == 0) {
+					return value;
+				}
+			}
+			throw new StreamCorruptedException("Malformed varint at offset " + position);
+		}
+
+		private int readSignedVarint() throws IOException {
+			int value = readVarint();
+			return value >>> 1 ^ -(value & 1);
+		}
+
+		private int readInt() throws IOException {
+			return readByte() << 24 | readByte() << 16 | readByte() << 8 | readByte();
+		}
+
+		private float readFloat() throws IOException {
+			return Float.intBitsToFloat(readInt());
+		}
+
+		/**
+		 * Reads a length and returns the offset at which the content it
+		 * describes ends.
+		 */
+		private int readLength() throws IOException {
+			int length = readVarint();
+			if (length < 0 || length > data.length - position) {
+				throw new EOFException("Truncated binary perspective file");
+			}
+			return position + length;
+		}
+
+		private String readString() throws IOException {
+			int index = readVarint();
+			if (index == 0) {
+				return null;
+			}
+			if (index > strings.length) {
+				throw new StreamCorruptedException("Invalid string index " + index + " at offset " + position);
+			}
+			return strings[index - 1];
+		}
+	}
+}
@@ -24,9 +24,29 @@ import org.flexdock.perspective.persist.xml.XMLPersister;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
 
 /**
+ * Stores perspectives in files through a {@code Persister}.
+ * <p>
+ * When the {@code Persister} is a {@code BinaryPersister} and journaling is
+ * enabled, only the first {@code store()} to a file in a session writes the
+ * whole {@code PerspectiveModel}. Later stores append a journal of the docking
+ * states, floating groups and layouts that have changed since, until the
+ * journal outgrows the snapshot it follows and the file is compacted by
+ * writing a fresh snapshot.
+ * <p>
+ * Files are never rewritten in place. A new file is written next to the old
+ * one, forced to disk and then moved over it, so that a crash during a store
+ * leaves the previous content intact rather than a truncated file.
+ * <p>
  * Created on 2005-06-03
  *
  * @author <a href="mailto:mati@sz.home.pl">Mateusz Szczap</a>
@@ -37,6 +57,8 @@ public class FilePersistenceHandler implements PersistenceHandler {
 
 	private File defaultPerspectiveFile;
 	private Persister persister = null;
+	private boolean journaling = true;
+	private final HashMap<File, Journal> journals = new HashMap<>();
 
 	private FilePersistenceHandler(String absolutePath) {
         this(new File(absolutePath), null);
@@ -73,9 +95,36 @@ public class FilePersistenceHandler implements PersistenceHandler {
 
 //        XMLDebugger.println(perspectiveModel);
 
-		try (FileOutputStream fos = new FileOutputStream(file)) {
-			return this.persister.store(fos, perspectiveModel);
-		}
+        if (journaling && persister instanceof BinaryPersister) {
+            return storeJournaled(file, (BinaryPersister) persister, perspectiveModel);
+        }
+
+        return writeAtomically(file, out -> this.persister.store(out, perspectiveModel));
+    }
+
+    private synchronized boolean storeJournaled(File file, BinaryPersister binaryPersister, PerspectiveModel perspectiveModel) throws IOException, PersistenceException {
+        BinaryPersister.Digest digest = binaryPersister.digest(perspectiveModel);
+        Journal journal = journals.get(file);
+        // a file changed behind our back, or a journal larger than its snapshot, is rewritten
+        if (journal != null && journal.length == file.length() && journal.length < 2 * journal.snapshotLength) {
+            // appending is safe in place, since a truncated journal batch is ignored on load
+            try (FileOutputStream fos = new FileOutputStream(file, true)) {
+                if (binaryPersister.append(fos, journal.digest, digest, perspectiveModel) != 0) {
+                    fos.getChannel().force(true);
+                }
+            }
+        } else {
+            if (!writeAtomically(file, out -> binaryPersister.store(out, perspectiveModel))) {
+                journals.remove(file);
+                return false;
+            }
+            journal = new Journal();
+            journal.snapshotLength = file.length();
+            journals.put(file, journal);
+        }
+        journal.digest = digest;
+        journal.length = file.length();
+        return true;
     }
 
     /**
@@ -94,13 +143,41 @@ public class FilePersistenceHandler implements PersistenceHandler {
     }
 
 	private void validatePerspectiveFile(File file) throws IOException {
-        File dir = file.getParentFile();
+        File dir = file.getAbsoluteFile().getParentFile();
         if(!dir.exists()) {
             dir.mkdirs();
         }
+    }
 
-        if(!file.exists()) {
-            file.createNewFile();
+    /**
+     * Writes a file through a temporary file in the same directory, which is
+     * forced to disk before being moved over the target.
+     */
+    private static boolean writeAtomically(File file, StreamWriter writer) throws IOException, PersistenceException {
+        Path target = file.toPath();
+        Path temp = Files.createTempFile(file.getAbsoluteFile().getParentFile().toPath(), file.getName(), ".tmp");
+        boolean moved = false;
+        try {
+            try (FileOutputStream fos = new FileOutputStream(temp.toFile())) {
+                // some persisters close the stream they are given, which would
+                // leave nothing to force
+                if (!writer.write(new UnclosableOutputStream(fos))) {
+                    return false;
+                }
+                fos.getChannel().force(true);
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            moved = true;
+            return true;
+        } finally {
+            if (!moved) {
+                Files.deleteIfExists(temp);
+            }
         }
     }
 
@@ -118,6 +195,22 @@ public class FilePersistenceHandler implements PersistenceHandler {
 
     }
 
+    /**
+     * Sets whether stores through a {@code BinaryPersister} append a journal of
+     * changes to the file rather than rewriting it. Journaling is enabled by
+     * default.
+     */
+    public synchronized void setJournaling(boolean journaling) {
+        this.journaling = journaling;
+        if (!journaling) {
+            journals.clear();
+        }
+    }
+
+    public boolean isJournaling() {
+        return journaling;
+    }
+
     public void setDefaultPerspectiveFile(File file) {
         defaultPerspectiveFile = file;
     }
@@ -132,4 +225,33 @@ public class FilePersistenceHandler implements PersistenceHandler {
         return XMLPersister.newDefaultInstance();
     }
 
+    private interface StreamWriter {
+        boolean write(OutputStream out) throws IOException, PersistenceException;
+    }
+
+    private static class UnclosableOutputStream extends FilterOutputStream {
+        private UnclosableOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            flush();
+        }
+    }
+
+    /**
+     * What was last written to a journaled file.
+     */
+    private static class Journal {
+        private BinaryPersister.Digest digest;
+        private long snapshotLength;
+        private long length;
+    }
+
 }
@@ -0,0 +1,85 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective.persist;
+
+import org.flexdock.docking.state.PersistenceException;
+import org.flexdock.perspective.persist.xml.StreamingXMLPersister;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Converts perspective files between the XML format written by
+ * {@code XMLPersister} and the binary format written by {@code BinaryPersister}.
+ * Neither conversion requires the dockables in the files to be registered.
+ *
+ * @see BinaryPersister
+ * @see StreamingXMLPersister
+ */
+public final class PerspectiveFileConverter {
+
+	private PerspectiveFileConverter() {
+	}
+
+	/**
+	 * Reads a {@code PerspectiveModel} from {@code in} with one {@code Persister}
+	 * and writes it to {@code out} with another.
+	 */
+	public static boolean convert(InputStream in, Persister reader, OutputStream out, Persister writer) throws IOException, PersistenceException {
+		PerspectiveModel perspectiveModel = reader.load(in);
+		if (perspectiveModel == null) {
+			return false;
+		}
+		return writer.store(out, perspectiveModel);
+	}
+
+	public static boolean xmlToBinary(InputStream in, OutputStream out) throws IOException, PersistenceException {
+		return convert(in, new StreamingXMLPersister(), out, new BinaryPersister());
+	}
+
+	public static boolean binaryToXML(InputStream in, OutputStream out) throws IOException, PersistenceException {
+		return convert(in, new BinaryPersister(), out, new StreamingXMLPersister());
+	}
+
+	/**
+	 * Converts {@code source} to the other format, detecting its current format
+	 * from its header, and writes the result to {@code target}.
+	 *
+	 * @return {@code true} if the source was binary and has been written as XML;
+	 * {@code false} if it was XML and has been written as binary.
+	 */
+	public static boolean convert(File source, File target) throws IOException, PersistenceException {
+		try (InputStream in = new BufferedInputStream(new FileInputStream(source));
+			 OutputStream out = new BufferedOutputStream(new FileOutputStream(target))) {
+			if (BinaryPersister.isBinaryFormat(in)) {
+				binaryToXML(in, out);
+				return true;
+			}
+			xmlToBinary(in, out);
+			return false;
+		}
+	}
+}
@@ -18,7 +18,16 @@
  */
 package org.flexdock.perspective.persist;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.flexdock.perspective.Perspective;
 
@@ -30,15 +39,32 @@ import org.flexdock.perspective.Perspective;
  * @version $Id: PerspectiveModel.java,v 1.1 2005-06-11 16:14:48 marius Exp $
  */
 public class PerspectiveModel implements Serializable {
+    // pinned to the value computed for earlier versions, whose serialized form is unchanged
+    private static final long serialVersionUID = -5375506326386903902L;
 
     private String defaultPerspective;
     private String currentPerspective;
     private Perspective[] perspectives;
+    // perspectives that a Persister has located but not yet read, by id
+    private transient Map<String, Callable<Perspective>> deferredPerspectives;
 
     public PerspectiveModel(String defaultId, String current, Perspective[] perspectives) {
+        this(defaultId, current, perspectives, null);
+    }
+
+    /**
+     * Creates a model in which some perspectives are only read when first
+     * needed. Each {@code Callable} must return a new {@code Perspective} each
+     * time it is called, and may be called from any thread.
+     */
+    public PerspectiveModel(String defaultId, String current, Perspective[] perspectives,
+                            Map<String, Callable<Perspective>> deferredPerspectives) {
         this.defaultPerspective = defaultId;
         this.currentPerspective = current;
         this.perspectives = perspectives;
+        if (deferredPerspectives != null && !deferredPerspectives.isEmpty()) {
+            this.deferredPerspectives = new LinkedHashMap<>(deferredPerspectives);
+        }
     }
 
     public String getDefaultPerspective() {
@@ -49,12 +75,61 @@ public class PerspectiveModel implements Serializable {
         this.defaultPerspective = defaultPerspective;
     }
 
-    public Perspective[] getPerspectives() {
+    /**
+     * Returns every perspective in the model, first reading any that were
+     * deferred.
+     *
+     * @throws IllegalStateException if a deferred perspective cannot be read.
+     */
+    public synchronized Perspective[] getPerspectives() {
+        if (deferredPerspectives != null) {
+            // deferred perspectives are independent of each other, so read them concurrently
+            List<Perspective> list = new ArrayList<>(Arrays.asList(this.perspectives));
+            deferredPerspectives.entrySet().parallelStream()
+                    .map(entry -> loadDeferredPerspective(entry.getKey(), entry.getValue()))
+                    .forEachOrdered(list::add);
+            this.perspectives = list.toArray(new Perspective[0]);
+            this.deferredPerspectives = null;
+        }
+        return this.perspectives;
+    }
+
+    /**
+     * Returns the perspectives in the model that have already been read.
+     */
+    public synchronized Perspective[] getLoadedPerspectives() {
         return this.perspectives;
     }
 
-    public void setPerspectives(Perspective[] perspectives) {
+    /**
+     * Returns the perspectives in the model that have not been read yet, by id.
+     */
+    public synchronized Map<String, Callable<Perspective>> getDeferredPerspectives() {
+        return deferredPerspectives == null ? Collections.emptyMap() : Collections.unmodifiableMap(deferredPerspectives);
+    }
+
+    public synchronized void setPerspectives(Perspective[] perspectives) {
         this.perspectives = perspectives;
+        this.deferredPerspectives = null;
+    }
+
+    /**
+     * Reads a deferred perspective.
+     *
+     * @throws IllegalStateException if the perspective cannot be read.
+     */
+    public static Perspective loadDeferredPerspective(String perspectiveId, Callable<Perspective> loader) {
+        try {
+            return loader.call();
+        } catch (Exception ex) {
+            throw new IllegalStateException("Unable to load perspective " + perspectiveId, ex);
+        }
+    }
+
+    private synchronized void writeObject(ObjectOutputStream out) throws IOException {
+        // deferred perspectives can't be serialized as they are
+        getPerspectives();
+        out.defaultWriteObject();
     }
 
     public String getCurrentPerspective() {
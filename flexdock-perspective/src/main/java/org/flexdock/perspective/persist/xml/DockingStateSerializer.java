@@ -37,9 +37,9 @@ import java.awt.*;
  */
 public class DockingStateSerializer implements ISerializer {
 
-    private final static String OPENED_STATE = "opened";
-    private final static String MINIMIZED_STATE = "minimized";
-    private final static String FLOATING_STATE = "floating";
+    final static String OPENED_STATE = "opened";
+    final static String MINIMIZED_STATE = "minimized";
+    final static String FLOATING_STATE = "floating";
 
     /**
      * @see org.flexdock.perspective.persist.xml.ISerializer#serialize(org.w3c.dom.Document, java.lang.Object)
@@ -94,7 +94,7 @@ public class DockingStateSerializer implements ISerializer {
         }
     }
 
-    private String getPresentationMinimizeConstraint(int constraint) {
+    static String getPresentationMinimizeConstraint(int constraint) {
         switch (constraint) {
         case SwingConstants.LEFT:
                 return "left";
@@ -113,7 +113,7 @@ public class DockingStateSerializer implements ISerializer {
         }
     }
 
-    private int getRealMinimizeConstraint(String presConstraint) {
+    static int getRealMinimizeConstraint(String presConstraint) {
 		switch (presConstraint) {
 			case "left":
 				return SwingConstants.LEFT;
@@ -20,12 +20,15 @@ package org.flexdock.perspective.persist.xml;
 
 import org.flexdock.perspective.Perspective;
 import org.flexdock.perspective.persist.PerspectiveModel;
+import org.w3c.dom.DOMImplementation;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Created on 2005-06-03
@@ -61,18 +64,41 @@ public class PerspectiveModelSerializer implements ISerializer {
 
         NodeList perspectivesList = element.getElementsByTagName(PersistenceConstants.PERSPECTIVE_ELEMENT_NAME);
         ISerializer perspectiveSerializer = SerializerRegistry.getSerializer(Perspective.class);
-		ArrayList<Perspective> perspectives = new ArrayList<>();
+		ArrayList<Element> perspectiveElements = new ArrayList<>();
         for (int i=0; i<perspectivesList.getLength(); i++) {
             Node node = perspectivesList.item(i);
             if (node instanceof Element) {
-                Element perspectiveElement = (Element) node;
-                Perspective perspective = (Perspective) perspectiveSerializer.deserialize(perspectiveElement);
-                perspectives.add(perspective);
+                perspectiveElements.add((Element) node);
             }
         }
 
-		Perspective[] perspectivesArray = perspectives.toArray(new Perspective[perspectives.size()]);
+		Perspective[] perspectivesArray = deserializePerspectives(perspectiveSerializer, perspectiveElements);
 		return new PerspectiveModel(defaultPerspectiveId, currentPerspectiveId, perspectivesArray);
     }
 
+    /**
+     * Deserializes independent perspectives concurrently on the common
+     * fork-join pool. DOM implementations are not safe for concurrent reads,
+     * since they cache node lists and may expand nodes lazily, so each
+     * perspective is first copied into a document of its own.
+     */
+    private static Perspective[] deserializePerspectives(ISerializer perspectiveSerializer, List<Element> perspectiveElements) {
+        if (perspectiveElements.size() < 2) {
+            return perspectiveElements.stream()
+                    .map(perspectiveElement -> (Perspective) perspectiveSerializer.deserialize(perspectiveElement))
+                    .toArray(Perspective[]::new);
+        }
+
+        DOMImplementation implementation = perspectiveElements.get(0).getOwnerDocument().getImplementation();
+        Element[] copies = new Element[perspectiveElements.size()];
+        for (int i = 0; i < copies.length; i++) {
+            Document document = implementation.createDocument(null, null, null);
+            copies[i] = (Element) document.importNode(perspectiveElements.get(i), true);
+            document.appendChild(copies[i]);
+        }
+        return Arrays.stream(copies).parallel()
+                .map(perspectiveElement -> (Perspective) perspectiveSerializer.deserialize(perspectiveElement))
+                .toArray(Perspective[]::new);
+    }
+
 }
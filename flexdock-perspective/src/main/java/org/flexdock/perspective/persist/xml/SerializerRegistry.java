@@ -18,8 +18,8 @@
  */
 package org.flexdock.perspective.persist.xml;
 
-import java.util.HashMap;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Created on 2005-06-03
@@ -28,7 +28,8 @@ import java.util.Objects;
  * @version $Id: SerializerRegistry.java,v 1.5 2005-07-05 14:53:29 marius Exp $
  */
 public class SerializerRegistry {
-	private static HashMap<Class<?>, ISerializer> serializers = new HashMap<>();
+	// read concurrently while perspectives are deserialized in parallel
+	private static final ConcurrentHashMap<Class<?>, ISerializer> serializers = new ConcurrentHashMap<>();
 
 	public static void registerSerializer(Class<?> clazz, ISerializer serializer) {
 		Objects.requireNonNull(clazz);
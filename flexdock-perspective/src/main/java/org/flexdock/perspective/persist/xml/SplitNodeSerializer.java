@@ -70,29 +70,8 @@ public class SplitNodeSerializer extends AbstractLayoutNodeSerializer implements
 		String percentage = element.getAttribute(PersistenceConstants.SPLIT_NODE_ATTRIBUTE_PERCENTAGE);
 		String dockingRegion = element.getAttribute(PersistenceConstants.SPLIT_NODE_ATTRIBUTE_DOCKING_REGION);
 		
-		int orientation = DockingConstants.UNINITIALIZED;
-		if (orientationString.equals("vertical")) {
-			orientation = JSplitPane.VERTICAL_SPLIT;
-		}
-		else if (orientationString.equals("horizontal")) {
-			orientation = JSplitPane.HORIZONTAL_SPLIT;
-		}
-		
-		int region = DockingConstants.UNINITIALIZED;
-		switch (regionString) {
-		case "top":
-			region = SwingConstants.TOP;
-			break;
-		case "bottom":
-			region = SwingConstants.BOTTOM;
-			break;
-		case "left":
-			region = SwingConstants.LEFT;
-			break;
-		case "right":
-			region = SwingConstants.RIGHT;
-			break;
-		}
+		int orientation = parseOrientation(orientationString);
+		int region = parseRegion(regionString);
 		
 		splitNode.setOrientation(orientation);
 		splitNode.setRegion(region);
@@ -107,6 +86,30 @@ public class SplitNodeSerializer extends AbstractLayoutNodeSerializer implements
 		return splitNode;
 	}
 	
+	static int parseOrientation(String orientationString) {
+		if (orientationString.equals("vertical")) {
+			return JSplitPane.VERTICAL_SPLIT;
+		}
+		else if (orientationString.equals("horizontal")) {
+			return JSplitPane.HORIZONTAL_SPLIT;
+		}
+		return DockingConstants.UNINITIALIZED;
+	}
+	
+	static int parseRegion(String regionString) {
+		switch (regionString) {
+		case "top":
+			return SwingConstants.TOP;
+		case "bottom":
+			return SwingConstants.BOTTOM;
+		case "left":
+			return SwingConstants.LEFT;
+		case "right":
+			return SwingConstants.RIGHT;
+		}
+		return DockingConstants.UNINITIALIZED;
+	}
+	
 	@Override
 	protected LayoutNode createLayoutNode() {
 		return new SplitNode(-1, -1, -1.0f, null);
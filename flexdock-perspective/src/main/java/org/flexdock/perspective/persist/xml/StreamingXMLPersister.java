@@ -0,0 +1,594 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective.persist.xml;
+
+import org.flexdock.docking.DockingConstants;
+import org.flexdock.docking.state.DockingPath;
+import org.flexdock.docking.state.DockingState;
+import org.flexdock.docking.state.FloatingGroup;
+import org.flexdock.docking.state.PersistenceException;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
+import org.flexdock.docking.state.tree.SplitNode;
+import org.flexdock.perspective.Layout;
+import org.flexdock.perspective.LayoutSequence;
+import org.flexdock.perspective.Perspective;
+import org.flexdock.perspective.persist.Persister;
+import org.flexdock.perspective.persist.PerspectiveModel;
+
+import javax.swing.*;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import java.awt.*;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * A {@code Persister} that reads and writes the same XML format as
+ * {@code XMLPersister}, but streams it through StAX instead of building a DOM
+ * document and serializing it through a {@code Transformer}. Perspectives are
+ * written directly from their model objects and read back directly into them,
+ * so neither storing nor loading holds an intermediate tree in memory.
+ * <p>
+ * Unlike {@code XMLPersister}, this class does not consult the
+ * {@code SerializerRegistry}, since the registered {@code ISerializers} work
+ * on DOM elements. Files written by either persister may be read by the
+ * other.
+ *
+ * @see XMLPersister
+ * @see PersistenceConstants
+ */
+public class StreamingXMLPersister implements Persister {
+
+    private static final String ENCODING = "UTF-8";
+    private static final String INDENT = "    ";
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean store(OutputStream os, PerspectiveModel perspectiveModel) throws IOException, PersistenceException {
+        try {
+            XMLStreamWriter writer = XMLOutputFactory.newInstance().createXMLStreamWriter(os, ENCODING);
+            Output out = new Output(writer);
+            writer.writeStartDocument(ENCODING, "1.0");
+            writePerspectiveModel(out, perspectiveModel);
+            writer.writeEndDocument();
+            writer.flush();
+            // closing the writer does not close the underlying stream
+            writer.close();
+        } catch (XMLStreamException ex) {
+            throw new PersistenceException("Unable to serialize perspectiveModel", ex);
+        }
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PerspectiveModel load(InputStream is) throws IOException, PersistenceException {
+        try {
+            XMLInputFactory factory = XMLInputFactory.newInstance();
+            factory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+            factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+            XMLStreamReader reader = factory.createXMLStreamReader(is);
+            try {
+                while (reader.hasNext()) {
+                    if (reader.next() == XMLStreamReader.START_ELEMENT
+                            && PersistenceConstants.PERSPECTIVE_MODEL_ELEMENT_NAME.equals(reader.getLocalName())) {
+                        return readPerspectiveModel(reader);
+                    }
+                }
+                return null;
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException ex) {
+            throw new PersistenceException("Unable to deserialize perspectiveModel from xml", ex);
+        }
+    }
+
+    private void writePerspectiveModel(Output out, PerspectiveModel perspectiveModel) throws XMLStreamException {
+        out.start(PersistenceConstants.PERSPECTIVE_MODEL_ELEMENT_NAME, false);
+        out.attribute(PersistenceConstants.PERSPECTIVE_MODEL_ATTRIBUTE_CURRENT_PERSPECTIVE_ID, perspectiveModel.getCurrentPerspective());
+        out.attribute(PersistenceConstants.PERSPECTIVE_MODEL_ATTRIBUTE_DEFAULT_PERSPECTIVE_ID, perspectiveModel.getDefaultPerspective());
+        for (Perspective perspective : perspectiveModel.getPerspectives()) {
+            writePerspective(out, perspective);
+        }
+        out.end();
+    }
+
+    private void writePerspective(Output out, Perspective perspective) throws XMLStreamException {
+        out.start(PersistenceConstants.PERSPECTIVE_ELEMENT_NAME, false);
+        out.attribute(PersistenceConstants.PERSPECTIVE_ATTRIBUTE_ID, perspective.getPersistentId());
+        out.attribute(PersistenceConstants.PERSPECTIVE_ATTRIBUTE_NAME, perspective.getName());
+        writeLayout(out, perspective.getLayout());
+        if (perspective.getInitialSequence() != null) {
+            writeLayoutSequence(out, perspective.getInitialSequence());
+        }
+        out.end();
+    }
+
+    private void writeLayout(Output out, Layout layout) throws XMLStreamException {
+        // all states, not just those of registered dockables, so that files can be
+        // rewritten without the application running
+        String[] dockableIds = layout.getDockableIds();
+        String[] floatingGroupIds = layout.getFloatingGroupIds();
+        ImmutableLayoutNode restorationLayout = layout.getRestorationTree();
+
+        out.start(PersistenceConstants.LAYOUT_ELEMENT_NAME,
+                dockableIds.length == 0 && floatingGroupIds.length == 0 && restorationLayout == null);
+        for (String dockableId : dockableIds) {
+            writeDockingState(out, layout.getDockingState(dockableId));
+        }
+        for (String floatingGroupId : floatingGroupIds) {
+            writeFloatingGroup(out, layout.getGroup(floatingGroupId));
+        }
+        if (restorationLayout != null) {
+            writeLayoutNode(out, restorationLayout);
+        }
+        out.end();
+    }
+
+    private void writeLayoutSequence(Output out, LayoutSequence layoutSequence) throws XMLStreamException {
+        List<DockingState> dockingStates = layoutSequence.getDockingStates();
+        out.start(PersistenceConstants.LAYOUT_SEQUENCE_ELEMENT_NAME, dockingStates.isEmpty());
+        for (DockingState dockingState : dockingStates) {
+            writeDockingState(out, dockingState);
+        }
+        out.end();
+    }
+
+    private void writeDockingState(Output out, DockingState dockingState) throws XMLStreamException {
+        out.start(PersistenceConstants.DOCKING_STATE_ELEMENT_NAME, !dockingState.hasCenterPoint() && !dockingState.hasDockingPath());
+        out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_DOCKABLE_ID, dockingState.getDockableId());
+        if (dockingState.getRelativeParentId() != null && dockingState.getRelativeParentId().length() != 0) {
+            out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_RELATIVE_PARENT_ID, dockingState.getRelativeParentId());
+        }
+        out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_REGION, dockingState.getRegion().toString().toLowerCase());
+        if (dockingState.getSplitRatio() != DockingConstants.UNINITIALIZED_RATIO) {
+            out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_SPLIT_RATIO, String.valueOf(dockingState.getSplitRatio()));
+        }
+
+        if (dockingState.isMinimized()) {
+            out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_STATE, DockingStateSerializer.MINIMIZED_STATE);
+        } else if (dockingState.isFloating()) {
+            out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_STATE, DockingStateSerializer.FLOATING_STATE);
+        } else {
+            out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_STATE, DockingStateSerializer.OPENED_STATE);
+        }
+
+        if (dockingState.isFloating()) {
+            out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_FLOATING_GROUP_NAME, dockingState.getFloatingGroup());
+        } else if (dockingState.isMinimized()) {
+            String presConstraint = DockingStateSerializer.getPresentationMinimizeConstraint(dockingState.getMinimizedConstraint());
+            out.attribute(PersistenceConstants.DOCKING_STATE_ATTRIBUTE_MINIMIZE_CONSTRAINT, presConstraint);
+        }
+
+        if (dockingState.hasCenterPoint()) {
+            writePoint(out, dockingState.getCenterPoint());
+        }
+        if (dockingState.hasDockingPath()) {
+            writeDockingPath(out, dockingState.getPath());
+        }
+        out.end();
+    }
+
+    private void writeDockingPath(Output out, DockingPath dockingPath) throws XMLStreamException {
+        List<SplitNode> nodes = dockingPath.getNodes();
+        out.start(PersistenceConstants.DOCKING_PATH_ELEMENT_NAME, nodes.isEmpty());
+        out.attribute(PersistenceConstants.DOCKING_PATH_ATTRIBUTE_ROOT_PORT_ID, dockingPath.getRootPortId());
+        if (dockingPath.getSiblingId() != null && dockingPath.getSiblingId().length() != 0) {
+            out.attribute(PersistenceConstants.DOCKING_PATH_ATTRIBUTE_SIBLING_ID, dockingPath.getSiblingId());
+        }
+        if (dockingPath.isTabbed()) {
+            out.attribute(PersistenceConstants.DOCKING_PATH_ATTRIBUTE_IS_TABBED, String.valueOf(dockingPath.isTabbed()));
+        }
+        for (SplitNode splitNode : nodes) {
+            out.start(PersistenceConstants.SPLIT_NODE_ELEMENT_NAME, true);
+            writeSplitAttributes(out, splitNode.getOrientation(), splitNode.getRegion(), splitNode.getPercentage(),
+                    splitNode.getSiblingId(), splitNode.getDockingRegion());
+            out.end();
+        }
+        out.end();
+    }
+
+    private void writeLayoutNode(Output out, ImmutableLayoutNode node) throws XMLStreamException {
+        switch (node.getKind()) {
+        case DOCKING_PORT:
+            out.start(PersistenceConstants.DOCKING_PORT_NODE_ELEMENT_NAME, node.getChildCount() == 0);
+            break;
+        case SPLIT:
+            out.start(PersistenceConstants.SPLIT_NODE_ELEMENT_NAME, node.getChildCount() == 0);
+            writeSplitAttributes(out, node.getOrientation(), node.getRegion(), node.getPercentage(),
+                    node.getSiblingId(), node.getDockingRegion());
+            break;
+        default:
+            out.start(PersistenceConstants.DOCKABLE_NODE_ELEMENT_NAME, true);
+            out.attribute(PersistenceConstants.DOCKABLE_NODE_ATTRIBUTE_DOCKABLE_ID, node.getDockableId());
+            break;
+        }
+
+        for (ImmutableLayoutNode child : node.getChildren()) {
+            writeLayoutNode(out, child);
+        }
+        out.end();
+    }
+
+    private void writeSplitAttributes(Output out, int orientation, int region, float percentage, String siblingId,
+                                      DockingConstants.Region dockingRegion) throws XMLStreamException {
+        if (siblingId != null && !siblingId.isEmpty()) {
+            out.attribute(PersistenceConstants.SPLIT_NODE_ATTRIBUTE_SIBLING_ID, siblingId);
+        }
+        out.attribute(PersistenceConstants.SPLIT_NODE_ATTRIBUTE_ORIENTATION,
+                orientation == JSplitPane.VERTICAL_SPLIT ? "vertical" : "horizontal");
+        out.attribute(PersistenceConstants.SPLIT_NODE_ATTRIBUTE_REGION, getRegionDesc(region));
+        out.attribute(PersistenceConstants.SPLIT_NODE_ATTRIBUTE_PERCENTAGE, String.valueOf(percentage));
+        if (dockingRegion != null) {
+            out.attribute(PersistenceConstants.SPLIT_NODE_ATTRIBUTE_DOCKING_REGION, dockingRegion.toString().toLowerCase());
+        }
+    }
+
+    /**
+     * Matches {@code SplitNode.getRegionDesc()}.
+     */
+    private static String getRegionDesc(int region) {
+        switch (region) {
+        case SwingConstants.TOP:
+            return "top";
+        case SwingConstants.BOTTOM:
+            return "bottom";
+        case SwingConstants.RIGHT:
+            return "right";
+        default:
+            return "left";
+        }
+    }
+
+    private void writeFloatingGroup(Output out, FloatingGroup floatingGroup) throws XMLStreamException {
+        out.start(PersistenceConstants.FLOATING_GROUP_ELEMENT_NAME, false);
+        out.attribute(PersistenceConstants.FLOATING_GROUP_ATTRIBUTE_NAME, floatingGroup.getName());
+
+        Rectangle bounds = floatingGroup.getBounds();
+        out.start(PersistenceConstants.RECTANGLE_ELEMENT_NAME, false);
+        writePoint(out, bounds.getLocation());
+        out.start(PersistenceConstants.DIMENSION_ELEMENT_NAME, true);
+        out.attribute(PersistenceConstants.DIMENSION_ATTRIBUTE_HEIGHT, String.valueOf(bounds.height));
+        out.attribute(PersistenceConstants.DIMENSION_ATTRIBUTE_WIDTH, String.valueOf(bounds.width));
+        out.end();
+        out.end();
+
+        for (Iterator<?> it = floatingGroup.getDockableIterator(); it.hasNext();) {
+            out.start(PersistenceConstants.DOCKABLE_ELEMENT_NAME, true);
+            out.attribute(PersistenceConstants.DOCKABLE_ATTRIBUTE_ID, (String) it.next());
+            out.end();
+        }
+        out.end();
+    }
+
+    private void writePoint(Output out, Point point) throws XMLStreamException {
+        out.start(PersistenceConstants.POINT_ELEMENT_NAME, true);
+        out.attribute(PersistenceConstants.POINT_ATTRIBUTE_X, String.valueOf(point.x));
+        out.attribute(PersistenceConstants.POINT_ATTRIBUTE_Y, String.valueOf(point.y));
+        out.end();
+    }
+
+    private PerspectiveModel readPerspectiveModel(XMLStreamReader reader) throws XMLStreamException {
+        String currentPerspectiveId = attribute(reader, PersistenceConstants.PERSPECTIVE_MODEL_ATTRIBUTE_CURRENT_PERSPECTIVE_ID);
+        String defaultPerspectiveId = attribute(reader, PersistenceConstants.PERSPECTIVE_MODEL_ATTRIBUTE_DEFAULT_PERSPECTIVE_ID);
+
+        List<Perspective> perspectives = new ArrayList<>();
+        while (nextChild(reader)) {
+            if (PersistenceConstants.PERSPECTIVE_ELEMENT_NAME.equals(reader.getLocalName())) {
+                perspectives.add(readPerspective(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return new PerspectiveModel(defaultPerspectiveId, currentPerspectiveId, perspectives.toArray(new Perspective[0]));
+    }
+
+    private Perspective readPerspective(XMLStreamReader reader) throws XMLStreamException {
+        String perspectiveId = attribute(reader, PersistenceConstants.PERSPECTIVE_ATTRIBUTE_ID);
+        String perspectiveName = attribute(reader, PersistenceConstants.PERSPECTIVE_ATTRIBUTE_NAME);
+        Perspective perspective = new Perspective(perspectiveId, perspectiveName);
+
+        boolean hasLayout = false;
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (!hasLayout && PersistenceConstants.LAYOUT_ELEMENT_NAME.equals(name)) {
+                perspective.setLayout(readLayout(reader));
+                hasLayout = true;
+            } else if (perspective.getInitialSequence() == null && PersistenceConstants.LAYOUT_SEQUENCE_ELEMENT_NAME.equals(name)) {
+                perspective.setInitialSequence(readLayoutSequence(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return perspective;
+    }
+
+    private Layout readLayout(XMLStreamReader reader) throws XMLStreamException {
+        Layout layout = new Layout();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (PersistenceConstants.DOCKING_STATE_ELEMENT_NAME.equals(name)) {
+                DockingState dockingState = readDockingState(reader);
+                layout.setDockingState(dockingState.getDockableId(), dockingState);
+            } else if (PersistenceConstants.FLOATING_GROUP_ELEMENT_NAME.equals(name)) {
+                layout.addFloatingGroup(readFloatingGroup(reader));
+            } else if (layout.getRestorationTree() == null && PersistenceConstants.DOCKING_PORT_NODE_ELEMENT_NAME.equals(name)) {
+                layout.setRestorationTree(readLayoutNode(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return layout;
+    }
+
+    private LayoutSequence readLayoutSequence(XMLStreamReader reader) throws XMLStreamException {
+        LayoutSequence layoutSequence = new LayoutSequence();
+        while (nextChild(reader)) {
+            if (PersistenceConstants.DOCKING_STATE_ELEMENT_NAME.equals(reader.getLocalName())) {
+                layoutSequence.add(readDockingState(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return layoutSequence;
+    }
+
+    private DockingState readDockingState(XMLStreamReader reader) throws XMLStreamException {
+        DockingState dockingState = new DockingState(attribute(reader, PersistenceConstants.DOCKING_STATE_ATTRIBUTE_DOCKABLE_ID));
+
+        String relativeParentId = attribute(reader, PersistenceConstants.DOCKING_STATE_ATTRIBUTE_RELATIVE_PARENT_ID);
+        if (relativeParentId.length() != 0) {
+            dockingState.setRelativeParentId(relativeParentId);
+        }
+        dockingState.setRegion(DockingConstants.Region.valueOf(attribute(reader, PersistenceConstants.DOCKING_STATE_ATTRIBUTE_REGION).toUpperCase()));
+
+        String splitRatio = attribute(reader, PersistenceConstants.DOCKING_STATE_ATTRIBUTE_SPLIT_RATIO);
+        if (splitRatio.length() != 0) {
+            dockingState.setSplitRatio(Float.parseFloat(splitRatio));
+        }
+
+        String state = attribute(reader, PersistenceConstants.DOCKING_STATE_ATTRIBUTE_STATE);
+        if (state.equals(DockingStateSerializer.FLOATING_STATE)) {
+            String floatingGroupName = attribute(reader, PersistenceConstants.DOCKING_STATE_ATTRIBUTE_FLOATING_GROUP_NAME);
+            if (floatingGroupName.length() != 0) {
+                dockingState.setFloatingGroup(floatingGroupName);
+            }
+        } else if (state.equals(DockingStateSerializer.MINIMIZED_STATE)) {
+            String minimizeConstraint = attribute(reader, PersistenceConstants.DOCKING_STATE_ATTRIBUTE_MINIMIZE_CONSTRAINT);
+            dockingState.setMinimizedConstraint(DockingStateSerializer.getRealMinimizeConstraint(minimizeConstraint));
+        }
+
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (!dockingState.hasCenterPoint() && PersistenceConstants.POINT_ELEMENT_NAME.equals(name)) {
+                dockingState.setCenter(readPoint(reader));
+            } else if (!dockingState.hasDockingPath() && PersistenceConstants.DOCKING_PATH_ELEMENT_NAME.equals(name)) {
+                dockingState.setPath(readDockingPath(reader));
+            } else {
+                skip(reader);
+            }
+        }
+        return dockingState;
+    }
+
+    private DockingPath readDockingPath(XMLStreamReader reader) throws XMLStreamException {
+        DockingPath dockingPath = new DockingPath();
+        dockingPath.setRootPortId(attribute(reader, PersistenceConstants.DOCKING_PATH_ATTRIBUTE_ROOT_PORT_ID));
+        String siblingId = attribute(reader, PersistenceConstants.DOCKING_PATH_ATTRIBUTE_SIBLING_ID);
+        if (!siblingId.isEmpty()) {
+            dockingPath.setSiblingId(siblingId);
+        }
+        dockingPath.setTabbed(Boolean.parseBoolean(attribute(reader, PersistenceConstants.DOCKING_PATH_ATTRIBUTE_IS_TABBED)));
+
+        while (nextChild(reader)) {
+            if (PersistenceConstants.SPLIT_NODE_ELEMENT_NAME.equals(reader.getLocalName())) {
+                ImmutableLayoutNode node = readLayoutNode(reader);
+                SplitNode splitNode = new SplitNode(node.getOrientation(), node.getRegion(), node.getPercentage(), node.getSiblingId());
+                splitNode.setDockingRegion(node.getDockingRegion());
+                dockingPath.getNodes().add(splitNode);
+            } else {
+                skip(reader);
+            }
+        }
+        return dockingPath;
+    }
+
+    private ImmutableLayoutNode readLayoutNode(XMLStreamReader reader) throws XMLStreamException {
+        String name = reader.getLocalName();
+        if (PersistenceConstants.DOCKABLE_NODE_ELEMENT_NAME.equals(name)) {
+            String dockableId = attribute(reader, PersistenceConstants.DOCKABLE_NODE_ATTRIBUTE_DOCKABLE_ID);
+            skip(reader);
+            return ImmutableLayoutNode.dockable(dockableId);
+        }
+
+        boolean split = PersistenceConstants.SPLIT_NODE_ELEMENT_NAME.equals(name);
+        if (!split && !PersistenceConstants.DOCKING_PORT_NODE_ELEMENT_NAME.equals(name)) {
+            throw new RuntimeException("Incorrect element: " + name);
+        }
+
+        int orientation = 0;
+        int region = 0;
+        float percentage = 0;
+        String siblingId = null;
+        DockingConstants.Region dockingRegion = null;
+        if (split) {
+            orientation = SplitNodeSerializer.parseOrientation(attribute(reader, PersistenceConstants.SPLIT_NODE_ATTRIBUTE_ORIENTATION));
+            region = SplitNodeSerializer.parseRegion(attribute(reader, PersistenceConstants.SPLIT_NODE_ATTRIBUTE_REGION));
+            percentage = Float.parseFloat(attribute(reader, PersistenceConstants.SPLIT_NODE_ATTRIBUTE_PERCENTAGE));
+            siblingId = attribute(reader, PersistenceConstants.SPLIT_NODE_ATTRIBUTE_SIBLING_ID);
+            siblingId = siblingId.isEmpty() ? null : siblingId;
+            String dockingRegionString = attribute(reader, PersistenceConstants.SPLIT_NODE_ATTRIBUTE_DOCKING_REGION);
+            if (dockingRegionString.length() != 0) {
+                dockingRegion = DockingConstants.Region.valueOf(dockingRegionString.toUpperCase());
+            }
+        }
+
+        List<ImmutableLayoutNode> children = new ArrayList<>(2);
+        while (nextChild(reader)) {
+            children.add(readLayoutNode(reader));
+        }
+
+        if (!split) {
+            return ImmutableLayoutNode.dockingPort(children.toArray(new ImmutableLayoutNode[0]));
+        }
+        return ImmutableLayoutNode.split(orientation, region, percentage, siblingId, dockingRegion,
+                children.size() > 0 ? children.get(0) : null, children.size() > 1 ? children.get(1) : null);
+    }
+
+    private FloatingGroup readFloatingGroup(XMLStreamReader reader) throws XMLStreamException {
+        FloatingGroup floatingGroup = new FloatingGroup(attribute(reader, PersistenceConstants.FLOATING_GROUP_ATTRIBUTE_NAME));
+        boolean hasBounds = false;
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (!hasBounds && PersistenceConstants.RECTANGLE_ELEMENT_NAME.equals(name)) {
+                floatingGroup.setBounds(readRectangle(reader));
+                hasBounds = true;
+            } else if (PersistenceConstants.DOCKABLE_ELEMENT_NAME.equals(name)) {
+                floatingGroup.addDockable(attribute(reader, PersistenceConstants.DOCKABLE_ATTRIBUTE_ID));
+                skip(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return floatingGroup;
+    }
+
+    private Rectangle readRectangle(XMLStreamReader reader) throws XMLStreamException {
+        Rectangle rectangle = new Rectangle();
+        while (nextChild(reader)) {
+            String name = reader.getLocalName();
+            if (PersistenceConstants.POINT_ELEMENT_NAME.equals(name)) {
+                rectangle.setLocation(readPoint(reader));
+            } else if (PersistenceConstants.DIMENSION_ELEMENT_NAME.equals(name)) {
+                int width = Integer.parseInt(attribute(reader, PersistenceConstants.DIMENSION_ATTRIBUTE_WIDTH));
+                int height = Integer.parseInt(attribute(reader, PersistenceConstants.DIMENSION_ATTRIBUTE_HEIGHT));
+                rectangle.setSize(width, height);
+                skip(reader);
+            } else {
+                skip(reader);
+            }
+        }
+        return rectangle;
+    }
+
+    private Point readPoint(XMLStreamReader reader) throws XMLStreamException {
+        int x = Integer.parseInt(attribute(reader, PersistenceConstants.POINT_ATTRIBUTE_X));
+        int y = Integer.parseInt(attribute(reader, PersistenceConstants.POINT_ATTRIBUTE_Y));
+        skip(reader);
+        return new Point(x, y);
+    }
+
+    /**
+     * Returns the value of the specified attribute of the current element, or an
+     * empty {@code String} if it is absent, matching {@code Element.getAttribute()}.
+     */
+    private static String attribute(XMLStreamReader reader, String name) {
+        String value = reader.getAttributeValue(null, name);
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Advances to the next child element of the current element.
+     *
+     * @return {@code true} if positioned on the start of a child element;
+     * {@code false} if positioned on the end of the current element.
+     */
+    private static boolean nextChild(XMLStreamReader reader) throws XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamReader.START_ELEMENT) {
+                return true;
+            }
+            if (event == XMLStreamReader.END_ELEMENT) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advances to the end of the current element, skipping all of its content.
+     */
+    private static void skip(XMLStreamReader reader) throws XMLStreamException {
+        while (nextChild(reader)) {
+            skip(reader);
+        }
+    }
+
+    /**
+     * Writes indented elements to an {@code XMLStreamWriter}.
+     */
+    private static class Output {
+        private final XMLStreamWriter writer;
+        private final List<Boolean> openElements = new ArrayList<>();
+        private boolean lastClosedHadChildren;
+
+        private Output(XMLStreamWriter writer) {
+            this.writer = writer;
+        }
+
+        private void start(String name, boolean empty) throws XMLStreamException {
+            newLine(openElements.size());
+            if (empty) {
+                writer.writeEmptyElement(name);
+            } else {
+                writer.writeStartElement(name);
+            }
+            openElements.add(empty);
+            lastClosedHadChildren = false;
+        }
+
+        private void attribute(String name, String value) throws XMLStreamException {
+            if (value != null) {
+                writer.writeAttribute(name, value);
+            }
+        }
+
+        private void end() throws XMLStreamException {
+            boolean empty = openElements.remove(openElements.size() - 1);
+            if (!empty) {
+                if (lastClosedHadChildren) {
+                    newLine(openElements.size());
+                }
+                writer.writeEndElement();
+            }
+            lastClosedHadChildren = true;
+        }
+
+        private void newLine(int depth) throws XMLStreamException {
+            writer.writeCharacters("\n");
+            for (int i = 0; i < depth; i++) {
+                writer.writeCharacters(INDENT);
+            }
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in
+ * all copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.flexdock.perspective.persist;
+
+import org.flexdock.docking.DockingConstants;
+import org.flexdock.docking.state.DockingPath;
+import org.flexdock.docking.state.DockingState;
+import org.flexdock.docking.state.FloatingGroup;
+import org.flexdock.docking.state.tree.ImmutableLayoutNode;
+import org.flexdock.docking.state.tree.SplitNode;
+import org.flexdock.perspective.Layout;
+import org.flexdock.perspective.LayoutSequence;
+import org.flexdock.perspective.Perspective;
+import org.flexdock.perspective.persist.xml.StreamingXMLPersister;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BinaryPersisterTest {
+
+	@Test
+	void roundTrip() throws Exception {
+		PerspectiveModel model = createModel();
+		String expected = toXML(model);
+
+		PerspectiveModel loaded = load(store(model));
+		assertEquals("p1", loaded.getCurrentPerspective());
+		assertEquals("p2", loaded.getDefaultPerspective());
+		// only the current and default perspectives are decoded up front
+		assertEquals(2, loaded.getLoadedPerspectives().length);
+		assertEquals(1, loaded.getDeferredPerspectives().size());
+		assertEquals(expected, toXML(loaded));
+	}
+
+	@Test
+	void journalReplay() throws Exception {
+		BinaryPersister persister = new BinaryPersister();
+		PerspectiveModel model = createModel();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		persister.store(out, model);
+		BinaryPersister.Digest digest = persister.digest(model);
+
+		Perspective[] perspectives = model.getPerspectives();
+		Layout layout = perspectives[0].getLayout();
+		layout.getDockingState("B").setSplitRatio(0.75f);
+		layout.remove("C");
+		layout.removeFloatingGroup("g1");
+		layout.setRestorationTree(null);
+		Perspective added = new Perspective("p4", "Added");
+		DockingState d = new DockingState("D");
+		d.setRegion(DockingConstants.Region.SOUTH);
+		added.getLayout().setDockingState("D", d);
+		model.setPerspectives(new Perspective[] {perspectives[0], perspectives[1], added});
+		model.setCurrentPerspective("p4");
+
+		BinaryPersister.Digest changed = persister.digest(model);
+		assertTrue(persister.append(out, digest, changed, model) > 0);
+		// nothing is written if nothing changed since
+		assertEquals(0, persister.append(new ByteArrayOutputStream(), changed, persister.digest(model), model));
+
+		assertEquals(toXML(model), toXML(load(out.toByteArray())));
+	}
+
+	@Test
+	void truncatedBatch() throws Exception {
+		BinaryPersister persister = new BinaryPersister();
+		PerspectiveModel model = createModel();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		persister.store(out, model);
+		int snapshotLength = out.size();
+		String snapshot = toXML(model);
+		BinaryPersister.Digest digest = persister.digest(model);
+
+		model.getPerspectives()[0].getLayout().getDockingState("A").setSplitRatio(0.1f);
+		model.setCurrentPerspective("p3");
+		persister.append(out, digest, persister.digest(model), model);
+		byte[] data = out.toByteArray();
+
+		// a batch cut short at any point is ignored as a whole
+		for (int length = snapshotLength; length < data.length; length++) {
+			assertEquals(snapshot, toXML(load(Arrays.copyOf(data, length))), "truncated to " + length);
+		}
+		assertEquals(toXML(model), toXML(load(data)));
+	}
+
+	private static PerspectiveModel createModel() {
+		Perspective p1 = new Perspective("p1", "P One");
+		Layout layout = p1.getLayout();
+
+		DockingState a = new DockingState("A");
+		a.setRegion(DockingConstants.Region.CENTER);
+		a.setCenter(new Point(10, 20));
+		DockingPath path = new DockingPath();
+		path.setRootPortId("root");
+		path.setSiblingId("B");
+		path.setTabbed(true);
+		SplitNode split = new SplitNode(JSplitPane.HORIZONTAL_SPLIT, SwingConstants.LEFT, 0.3f, "B");
+		split.setDockingRegion(DockingConstants.Region.WEST);
+		path.getNodes().add(split);
+		path.getNodes().add(new SplitNode(JSplitPane.VERTICAL_SPLIT, SwingConstants.BOTTOM, 0.6f, null));
+		a.setPath(path);
+		layout.setDockingState("A", a);
+
+		DockingState b = new DockingState("B");
+		b.setRegion(DockingConstants.Region.EAST);
+		b.setRelativeParentId("A");
+		b.setSplitRatio(0.25f);
+		b.setMinimizedConstraint(SwingConstants.LEFT);
+		layout.setDockingState("B", b);
+
+		DockingState c = new DockingState("C");
+		c.setRegion(DockingConstants.Region.NORTH);
+		c.setFloatingGroup("g1");
+		layout.setDockingState("C", c);
+		FloatingGroup group = new FloatingGroup("g1");
+		group.setBounds(new Rectangle(1, 2, 300, 400));
+		group.addDockable("C");
+		layout.addFloatingGroup(group);
+
+		layout.setRestorationTree(ImmutableLayoutNode.dockingPort(
+				ImmutableLayoutNode.split(JSplitPane.HORIZONTAL_SPLIT, SwingConstants.LEFT, 0.3f, "B", DockingConstants.Region.EAST,
+						ImmutableLayoutNode.dockingPort(ImmutableLayoutNode.dockable("A")),
+						ImmutableLayoutNode.dockingPort(ImmutableLayoutNode.dockable("B"), ImmutableLayoutNode.dockable("C")))));
+
+		LayoutSequence sequence = new LayoutSequence();
+		sequence.add("A");
+		sequence.add("B", "A");
+		p1.setInitialSequence(sequence);
+
+		Perspective p2 = new Perspective("p2", "Empty");
+		Perspective p3 = new Perspective("p3", "Other");
+		DockingState other = new DockingState("A");
+		other.setRegion(DockingConstants.Region.WEST);
+		p3.getLayout().setDockingState("A", other);
+		return new PerspectiveModel("p2", "p1", new Perspective[] {p1, p2, p3});
+	}
+
+	private static byte[] store(PerspectiveModel model) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		assertTrue(new BinaryPersister().store(out, model));
+		return out.toByteArray();
+	}
+
+	private static PerspectiveModel load(byte[] data) throws Exception {
+		return new BinaryPersister().load(new ByteArrayInputStream(data));
+	}
+
+	// the XML form serves as a canonical form of a model's content. deferred
+	// perspectives are listed after the decoded ones, so the order is ignored.
+	private static String toXML(PerspectiveModel model) throws Exception {
+		Perspective[] perspectives = model.getPerspectives().clone();
+		Arrays.sort(perspectives, Comparator.comparing(Perspective::getPersistentId));
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new StreamingXMLPersister().store(out, new PerspectiveModel(model.getDefaultPerspective(),
+				model.getCurrentPerspective(), perspectives));
+		return new String(out.toByteArray(), StandardCharsets.UTF_8);
+	}
+}
@@ -63,6 +63,7 @@ public class View extends JComponent implements Dockable {
 
 	private static final String ACTION_TOGGLE_NEXT = "toggleNextView";
 	private static final String ACTION_TOGGLE_PREVIOUS = "togglePreviousView";
+	private static final String ACTION_TOGGLE_RECENT = "toggleRecentView";
 
 	static final DockingStrategy VIEW_DOCKING_STRATEGY = createDockingStrategy();
 
@@ -135,6 +136,12 @@ public class View extends JComponent implements Dockable {
 				SwingUtility.toggleFocus(-1);
 			}
 		});
+		getActionMap().put(ACTION_TOGGLE_RECENT, new AbstractAction() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				SwingUtility.toggleRecentFocus();
+			}
+		});
 	}
 
 	private static DockingStrategy createDockingStrategy() {
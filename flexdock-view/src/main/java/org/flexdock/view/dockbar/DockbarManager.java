@@ -30,7 +30,6 @@ import org.flexdock.event.EventManager;
 import org.flexdock.perspective.RestorationManager;
 import org.flexdock.util.RootWindow;
 import org.flexdock.util.Utilities;
-import org.flexdock.view.dockbar.activation.ActivationQueue;
 import org.flexdock.view.dockbar.activation.ActiveDockableHandler;
 import org.flexdock.view.dockbar.activation.Animation;
 import org.flexdock.view.dockbar.event.*;
@@ -42,6 +41,7 @@ import java.awt.event.ComponentAdapter;
 import java.awt.event.ComponentEvent;
 import java.lang.ref.WeakReference;
 import java.lang.reflect.Constructor;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.WeakHashMap;
 
@@ -67,12 +67,16 @@ public class DockbarManager {
 	
 	private DockbarLayout dockbarLayout;
 	private ActivationListener activationListener;
+	private Animation animation;
 	private HashMap<String, Integer> dockables;
 	
 	private int activeEdge = MinimizationManager.UNSPECIFIED_LAYOUT_CONSTRAINT;
 	private String activeDockableId;
 	private boolean animating;
 	private boolean dragging;
+	// while a batch is in progress, relayouts are postponed until it ends
+	private boolean batching;
+	private boolean validationPending;
 	
 	static {
 		EventManager.addHandler(new DockbarEventHandler());
@@ -207,6 +211,7 @@ public class DockbarManager {
 	protected DockbarManager(RootWindow window) {
 		dockbarLayout = new DockbarLayout(this);
 		activationListener = new ActivationListener(this);
+		animation = new Animation(this);
 		
 		leftBar = new Dockbar(this, SwingConstants.LEFT);
 		rightBar = new Dockbar(this, SwingConstants.RIGHT);
@@ -276,9 +281,32 @@ public class DockbarManager {
 	}
 	
 	public void revalidate() {
+		if (batching) {
+			validationPending = true;
+			return;
+		}
 		EventQueue.invokeLater(this::validate);
 	}
 	
+	private void runBatch(Runnable task) {
+		if (batching) {
+			task.run();
+			return;
+		}
+		
+		batching = true;
+		try {
+			task.run();
+		}
+		finally {
+			batching = false;
+			if (validationPending) {
+				validationPending = false;
+				revalidate();
+			}
+		}
+	}
+	
 	private void validate() {
 		toggleDockbars();
 		dockbarLayout.layout();
@@ -416,6 +444,29 @@ public class DockbarManager {
 		EventManager.dispatch(evt);
 	}
 	
+	/**
+	 * Minimizes the specified {@code Dockables} to the edges recorded in
+	 * their {@code DockingStates}, laying out the dockbars only once for the
+	 * whole batch.
+	 *
+	 * @param dockables the {@code Dockables} to minimize
+	 * @see DockingState#getMinimizedConstraint()
+	 */
+	public void minimize(Collection<? extends Dockable> dockables) {
+		runBatch(() -> {
+			for (Dockable dockable : dockables) {
+				DockingState info = DockingManager.getDockingState(dockable);
+				int edge = info == null ? MinimizationManager.UNSPECIFIED_LAYOUT_CONSTRAINT : info.getMinimizedConstraint();
+				if (edge == MinimizationManager.UNSPECIFIED_LAYOUT_CONSTRAINT) {
+					minimize(dockable);
+				}
+				else {
+					minimize(dockable, edge);
+				}
+			}
+		});
+	}
+	
 	public void reAdd(Dockable dockable) {
 		// can't re-add if the dockable is null, or we already contain it
 		if (dockable == null || contains(dockable)) {
@@ -475,6 +526,16 @@ public class DockbarManager {
 		}
 	}
 	
+	/**
+	 * Restores the specified {@code Dockables} from the dockbars, laying out
+	 * the dockbars only once for the whole batch.
+	 *
+	 * @param dockables the {@code Dockables} to restore
+	 */
+	public void restore(Collection<? extends Dockable> dockables) {
+		runBatch(() -> dockables.forEach(this::restore));
+	}
+	
 	public boolean remove(Dockable dockable) {
 		if (dockable == null) {
 			return false;
@@ -596,14 +657,12 @@ public class DockbarManager {
 
 	// TODO I don't want these to animate, they should just snap out
 	private void startAnimation(final Dockable oldDockable, final Dockable newDockable, final String newDockableId, final int newEdge) {
-		Animation deactivation = oldDockable == null ? null : new Animation(this, true);
 		Runnable updater1 = () -> {
 			setActiveEdge(newEdge);
 			setActiveDockableId(newDockableId);
 			viewPane.updateOrientation();
 			viewPane.updateContents();
 		};
-		Animation activation = newDockableId == null ? null : new Animation(this, false);
 		Runnable updater2 = () -> {
 			viewPane.setPrefSize(ViewPane.UNSPECIFIED_PREFERRED_SIZE);
 			viewPane.updateOrientation();
@@ -614,8 +673,15 @@ public class DockbarManager {
 			dispatchEvent(oldDockable, newDockable);
 		};
 		
-		ActivationQueue queue = new ActivationQueue(this, deactivation, updater1, activation, updater2);
-		queue.start();
+		// the animation retargets itself if one is already running, so rapid
+		// activation changes never pile up
+		Runnable start = () -> animation.start(oldDockable != null, updater1, newDockableId != null, updater2);
+		if (EventQueue.isDispatchThread()) {
+			start.run();
+		}
+		else {
+			EventQueue.invokeLater(start);
+		}
 	}
 	
 	public int getPreferredViewpaneSize() {
@@ -23,6 +23,7 @@ import org.flexdock.docking.Dockable;
 import org.flexdock.docking.state.MinimizationManager;
 
 import java.awt.*;
+import java.util.Collection;
 
 /**
  * @author Christopher Butler
@@ -70,4 +71,19 @@ public class MinimizationAdapter implements MinimizationManager {
 			mgr.restore(dockable);
 		}
 	}
+
+	@Override
+	public void setMinimized(Collection<? extends Dockable> dockables, boolean minimizing, Component window) {
+		DockbarManager mgr = DockbarManager.getInstance(window);
+		if (mgr == null) {
+			return;
+		}
+
+		if (minimizing) {
+			mgr.minimize(dockables);
+		}
+		else {
+			mgr.restore(dockables);
+		}
+	}
 }
@@ -1,60 +0,0 @@
-/*
- * Permission is hereby granted, free of charge, to any person obtaining a copy
- * of this software and associated documentation files (the "Software"), to deal
- * in the Software without restriction, including without limitation the rights
- * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
- * copies of the Software, and to permit persons to whom the Software is
- * furnished to do so, subject to the following conditions:
- *
- * The above copyright notice and this permission notice shall be included in
- * all copies or substantial portions of the Software.
- *
- * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
- * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
- * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
- * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
- * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
- * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
- * SOFTWARE.
- */
-package org.flexdock.view.dockbar.activation;
-
-
-import org.flexdock.view.dockbar.DockbarManager;
-
-/**
- * @author Christopher Butler
- */
-public class ActivationQueue extends Thread {
-    private DockbarManager manager;
-    private Animation deactivation;
-    private Runnable postDeactivate;
-    private Animation activation;
-    private Runnable postActivate;
-
-    public ActivationQueue(DockbarManager mgr, Animation deactivation, Runnable r1, Animation activation, Runnable r2) {
-        manager = mgr;
-        this.deactivation = deactivation;
-        this.postDeactivate = r1;
-        this.activation = activation;
-        this.postActivate = r2;
-    }
-
-
-    @Override
-    public void run() {
-        manager.setAnimating(true);
-        if(deactivation!=null) {
-            deactivation.run();
-        }
-        postDeactivate.run();
-        if(activation!=null) {
-            activation.run();
-        }
-        postActivate.run();
-        manager.setAnimating(false);
-    }
-
-
-
-}
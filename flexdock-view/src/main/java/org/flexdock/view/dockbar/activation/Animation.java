@@ -28,102 +28,134 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 
 /**
+ * Slides the {@code ViewPane} of a {@code DockbarManager} closed and open
+ * again. The animation is a small state machine stepped by a Swing
+ * {@code Timer}, so it runs entirely on the event dispatch thread. Starting a
+ * new animation while one is running retargets it: the pane collapses from
+ * wherever it currently is and then expands with the new contents.
+ *
  * @author Christopher Butler
  */
-public class Animation implements Runnable, ActionListener {
+public class Animation implements ActionListener {
 
     private static final int ANIMATION_INTERVAL = 20;
     private static final int TOTAL_FRAME_COUNT = 5;
 
+    private enum Phase {
+        IDLE, HIDING, SHOWING
+    }
+
     private DockbarManager dockManager;
     private Timer timer;
     private float frameDelta;
-    private int frameCount;
-    private boolean hiding;
-    private Runnable next;
-	private final Object lock;
-
-    public Animation(DockbarManager mgr, boolean hide) {
+    private Phase phase;
+    // fraction of the preferred size the viewpane currently occupies
+    private float extent;
+    private Runnable contentUpdate;
+    private boolean expand;
+    private Runnable completion;
+
+    public Animation(DockbarManager mgr) {
         dockManager = mgr;
         timer = new Timer(ANIMATION_INTERVAL, this);
-        frameDelta = (100.0f /getTotalFrameCount())/ 100.0f;
-        hiding = hide;
-        lock = new Object();
+        frameDelta = 1.0f / (getTotalFrameCount() - 1);
+        phase = Phase.IDLE;
     }
 
-    @Override
-    public void run() {
-        timer.start();
-        sleep();
-    }
+    /**
+     * Collapses the viewpane, runs {@code contentUpdate}, and then expands the
+     * viewpane again if {@code expand} is {@code true}. {@code completion} is
+     * run once the animation has finished. If an animation is already running,
+     * it is retargeted rather than restarted: its {@code contentUpdate}, if
+     * not yet run, and its {@code completion} are discarded in favor of the
+     * new ones. This method must be called on the event dispatch thread.
+     *
+     * @param expanded      whether the viewpane is currently expanded. Ignored
+     *                      while an animation is running.
+     * @param contentUpdate switches the viewpane to its new contents
+     * @param expand        whether the viewpane should be expanded afterward
+     * @param completion    run once the animation has finished
+     */
+    public void start(boolean expanded, Runnable contentUpdate, boolean expand, Runnable completion) {
+        if (phase == Phase.IDLE) {
+            extent = expanded ? 1 : 0;
+        }
+        this.contentUpdate = contentUpdate;
+        this.expand = expand;
+        this.completion = completion;
 
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        resetViewpaneSize();
-        dockManager.revalidate();
-        if(frameCount==getTotalFrameCount()-1) {
-            timer.stop();
-            wakeUp();
+        if (extent > 0) {
+            setPhase(Phase.HIDING);
         } else {
-            frameCount++;
+            switchContents();
         }
     }
 
-    private void resetViewpaneSize() {
-        ViewPane viewPane = dockManager.getViewPane();
-        int prefSize = dockManager.getPreferredViewpaneSize();
+    public boolean isRunning() {
+        return phase != Phase.IDLE;
+    }
 
-        if(frameCount==0) {
-            prefSize = getStartSize(prefSize);
-        } else if(frameCount==getTotalFrameCount()-1) {
-            prefSize = getEndSize(prefSize);
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (phase == Phase.HIDING) {
+            extent = Math.max(extent - frameDelta, 0);
+        } else if (phase == Phase.SHOWING) {
+            extent = Math.min(extent + frameDelta, 1);
         } else {
-            int newSize = (int)(prefSize * (frameCount*frameDelta));
-            prefSize = hiding? prefSize-newSize: newSize;
+            return;
         }
 
-        viewPane.setPrefSize(prefSize);
-    }
+        resetViewpaneSize();
+        dockManager.revalidate();
 
-    private int getStartSize(int prefSize) {
-        if(hiding) {
-            return prefSize;
+        if (phase == Phase.HIDING && extent == 0) {
+            switchContents();
+        } else if (phase == Phase.SHOWING && extent == 1) {
+            finish();
         }
-        return 0;
     }
 
-    private int getEndSize(int prefSize) {
-        if(hiding) {
-            return 0;
+    private void switchContents() {
+        Runnable update = contentUpdate;
+        contentUpdate = null;
+        if (update != null) {
+            update.run();
         }
-        return prefSize;
-    }
 
-    private int getTotalFrameCount() {
-        return TOTAL_FRAME_COUNT;
+        if (expand) {
+            resetViewpaneSize();
+            setPhase(Phase.SHOWING);
+        } else {
+            finish();
+        }
     }
 
-    public Runnable getNext() {
-        return next;
-    }
-    public void setNext(Runnable next) {
-        this.next = next;
+    private void finish() {
+        setPhase(Phase.IDLE);
+        Runnable done = completion;
+        completion = null;
+        if (done != null) {
+            done.run();
+        }
     }
 
-    private void sleep() {
-        synchronized(lock) {
-            try {
-                lock.wait();
-            } catch(InterruptedException e) {
-                System.err.println("Exception: " +e.getMessage());
-                e.printStackTrace();
-            }
+    private void setPhase(Phase newPhase) {
+        phase = newPhase;
+        dockManager.setAnimating(newPhase != Phase.IDLE);
+        if (newPhase == Phase.IDLE) {
+            timer.stop();
+        } else if (!timer.isRunning()) {
+            timer.start();
         }
     }
 
-    private void wakeUp() {
-        synchronized(lock) {
-            lock.notifyAll();
-        }
+    private void resetViewpaneSize() {
+        ViewPane viewPane = dockManager.getViewPane();
+        int prefSize = dockManager.getPreferredViewpaneSize();
+        viewPane.setPrefSize((int) (prefSize * extent));
+    }
+
+    private int getTotalFrameCount() {
+        return TOTAL_FRAME_COUNT;
     }
-}
\ No newline at end of file
+}
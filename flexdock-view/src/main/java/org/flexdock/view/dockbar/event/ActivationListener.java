@@ -24,15 +24,17 @@ import org.flexdock.event.EventManager;
 import org.flexdock.util.Utilities;
 import org.flexdock.view.dockbar.DockbarManager;
 
+import javax.swing.Timer;
 import java.awt.*;
 
 /**
  * @author Christopher Butler
  */
 public class ActivationListener {
+    private static final int DEACTIVATION_DELAY = 1000;
 
     private DockbarManager manager;
-    private Deactivator deactivator;
+    private Timer deactivator;
     private boolean enabled;
     private boolean mouseOver;
 
@@ -77,7 +79,7 @@ public class ActivationListener {
 
         mouseOver = true;
         if(deactivator!=null) {
-            deactivator.setEnabled(false);
+            deactivator.stop();
         }
         deactivator = null;
     }
@@ -90,8 +92,7 @@ public class ActivationListener {
 
         mouseOver = false;
         if(!isOverDockbars(mousePoint)) {
-			deactivator = new Deactivator(this, manager.getActiveDockableId());
-            deactivator.setEnabled(true);
+			deactivator = createDeactivator(manager.getActiveDockableId());
             deactivator.start();
         }
     }
@@ -121,41 +122,16 @@ public class ActivationListener {
         EventManager.dispatch(evt);
     }
 
-	private static class Deactivator extends Thread {
-		private final ActivationListener listener;
-
-        private String dockableId;
-        private boolean enabled;
-
-		private Deactivator(ActivationListener listener, String id) {
-			this.listener = listener;
-            dockableId = id;
-            enabled = true;
-        }
-
-        private synchronized void setEnabled(boolean b) {
-            enabled = b;
-        }
-
-        private synchronized boolean isEnabled() {
-            return enabled;
-        }
-
-        @Override
-        public void run() {
-            try {
-                Thread.sleep(1000);
-            } catch(InterruptedException e) {
-                System.err.println("Exception: " +e.getMessage());
-                e.printStackTrace();
-            }
-
-			if (isEnabled() && !Utilities.isChanged(dockableId, listener.manager.getActiveDockableId()) &&
-					!listener.isViewpaneLocked()) {
-				listener.manager.setActiveDockable(null);
+    private Timer createDeactivator(final String dockableId) {
+        // collapse the viewpane after a delay unless the mouse comes back, the
+        // viewpane gets locked, or another dockable is activated in the meantime
+        Timer timer = new Timer(DEACTIVATION_DELAY, e -> {
+            if(!Utilities.isChanged(dockableId, manager.getActiveDockableId()) && !isViewpaneLocked()) {
+                manager.setActiveDockable(null);
             }
-        }
-
+        });
+        timer.setRepeats(false);
+        return timer;
     }
 
     public boolean isMouseOver() {